@@ -0,0 +1,142 @@
+package com.embark.crud.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the requests of the read/write/list mix. Reads and updates target a fixed set of preloaded accounts,
+ * while creates add fresh accounts that later deletes consume, so the working set stays stable over a run.
+ */
+final class AccountWorkload {
+
+    private static final String[] SORT_FIELDS = {"id", "username", "email"};
+
+    private final LoadTestConfig config;
+    private final Operation[] weightedOperations;
+    private final Queue<String> createdIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong createSequence = new AtomicLong();
+    private final AtomicLong updateSequence = new AtomicLong();
+
+    AccountWorkload(LoadTestConfig config) {
+        this.config = config;
+        this.weightedOperations = weightedOperations(config.mix);
+    }
+
+    String preloadedId(int index) {
+        return "lt-" + index;
+    }
+
+    HttpRequest preloadRequest(int index) {
+        return createRequest(preloadedId(index), 0);
+    }
+
+    Operation nextOperation() {
+        Operation operation = weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+        if (operation == Operation.DELETE && createdIds.isEmpty()) {
+            return Operation.CREATE;
+        }
+        return operation;
+    }
+
+    PendingRequest requestFor(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case READ:
+                return new PendingRequest(operation, null, HttpRequest.newBuilder(uri("/users/" + randomPreloadedId()))
+                        .timeout(config.requestTimeout)
+                        .GET()
+                        .build());
+            case CREATE:
+                String newId = "lt-new-" + createSequence.incrementAndGet();
+                return new PendingRequest(operation, newId, createRequest(newId, 0));
+            case UPDATE:
+                String updatedId = randomPreloadedId();
+                long revision = updateSequence.incrementAndGet();
+                return new PendingRequest(operation, null, jsonRequest()
+                        .PUT(HttpRequest.BodyPublishers.ofString(accountJson(updatedId, revision)))
+                        .build());
+            case DELETE:
+                String deletedId = createdIds.poll();
+                if (deletedId == null) {
+                    return requestFor(Operation.CREATE);
+                }
+                return new PendingRequest(operation, null, HttpRequest.newBuilder(uri("/users/" + deletedId))
+                        .timeout(config.requestTimeout)
+                        .DELETE()
+                        .build());
+            case LIST:
+                int maxPage = Math.max(1, config.accounts / config.pageSize);
+                String query = String.format("/users?page=%d&size=%d&sort=%s",
+                                             1 + random.nextInt(maxPage),
+                                             config.pageSize,
+                                             SORT_FIELDS[random.nextInt(SORT_FIELDS.length)]);
+                return new PendingRequest(operation, null, HttpRequest.newBuilder(uri(query))
+                        .timeout(config.requestTimeout)
+                        .GET()
+                        .build());
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+    }
+
+    void onSuccess(PendingRequest request) {
+        if (request.operation == Operation.CREATE && request.createdId != null) {
+            createdIds.add(request.createdId);
+        }
+    }
+
+    private String randomPreloadedId() {
+        return preloadedId(ThreadLocalRandom.current().nextInt(config.accounts));
+    }
+
+    private HttpRequest createRequest(String id, long revision) {
+        return jsonRequest()
+                .POST(HttpRequest.BodyPublishers.ofString(accountJson(id, revision)))
+                .build();
+    }
+
+    private HttpRequest.Builder jsonRequest() {
+        return HttpRequest.newBuilder(uri("/users"))
+                .timeout(config.requestTimeout)
+                .header("Content-Type", "application/json");
+    }
+
+    private static String accountJson(String id, long revision) {
+        return String.format("{\"id\":\"%s\",\"email\":\"%s-%d@load.test\",\"username\":\"user-%s-%d\",\"password\":\"secret-%d\"}",
+                             id, id, revision, id, revision, revision);
+    }
+
+    private URI uri(String path) {
+        return URI.create(config.baseUrl + path);
+    }
+
+    private static Operation[] weightedOperations(Map<Operation, Integer> mix) {
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Operation[] operations = new Operation[totalWeight];
+        int position = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                operations[position++] = entry.getKey();
+            }
+        }
+        return operations;
+    }
+
+    static final class PendingRequest {
+
+        final Operation operation;
+        final String createdId;
+        final HttpRequest httpRequest;
+
+        private PendingRequest(Operation operation, String createdId, HttpRequest httpRequest) {
+            this.operation = operation;
+            this.createdId = createdId;
+            this.httpRequest = httpRequest;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.embark.crud.loadtest;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Per-operation latency histograms and outcome counters. Recording is wait-free, so completion callbacks
+ * on the HTTP client threads never contend with each other. Failed requests go to histograms of their own,
+ * so a server that fails fast cannot pass for one with high throughput and low latency: count, req/s and
+ * the percentiles cover successful requests only, and failures get a count and a p99 of their own.
+ */
+final class LatencyStats {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Recorder> failureRecorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> rejections = new EnumMap<>(Operation.class);
+
+    LatencyStats() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            failureRecorders.put(operation, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            rejections.put(operation, new LongAdder());
+        }
+    }
+
+    void recordSuccess(Operation operation, long latencyNanos) {
+        recorders.get(operation).recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    void recordFailure(Operation operation, long latencyNanos) {
+        failureRecorders.get(operation).recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    void recordRejection(Operation operation) {
+        rejections.get(operation).increment();
+    }
+
+    /**
+     * Discards everything recorded so far, used to drop the warm-up phase.
+     */
+    void reset() {
+        recorders.values().forEach(Recorder::reset);
+        failureRecorders.values().forEach(Recorder::reset);
+        rejections.values().forEach(LongAdder::reset);
+    }
+
+    void report(PrintStream out, long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        Histogram totalFailed = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        long totalRejections = 0;
+        out.printf("%-8s %10s %12s %10s %10s %10s %10s %10s %8s %12s %8s%n",
+                   "op", "ok", "ok req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                   "failed", "fail p99 ms", "rejected");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            Histogram failed = failureRecorders.get(operation).getIntervalHistogram();
+            long rejected = rejections.get(operation).sum();
+            total.add(histogram);
+            totalFailed.add(failed);
+            totalRejections += rejected;
+            printRow(out, operation.name(), histogram, failed, rejected, elapsedSeconds);
+        }
+        printRow(out, "TOTAL", total, totalFailed, totalRejections, elapsedSeconds);
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, Histogram failed, long rejected,
+                                 double elapsedSeconds) {
+        out.printf("%-8s %10d %12.1f %10.3f %10.3f %10.3f %10.3f %10.3f %8d %12.3f %8d%n",
+                   label,
+                   histogram.getTotalCount(),
+                   histogram.getTotalCount() / elapsedSeconds,
+                   millis(histogram.getValueAtPercentile(50)),
+                   millis(histogram.getValueAtPercentile(90)),
+                   millis(histogram.getValueAtPercentile(99)),
+                   millis(histogram.getValueAtPercentile(99.9)),
+                   millis(histogram.getMaxValue()),
+                   failed.getTotalCount(),
+                   millis(failed.getValueAtPercentile(99)),
+                   rejected);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
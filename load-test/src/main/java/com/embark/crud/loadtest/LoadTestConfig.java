@@ -0,0 +1,70 @@
+package com.embark.crud.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code load.*} system properties so they can be passed straight to
+ * {@code mvn exec:java}.
+ */
+final class LoadTestConfig {
+
+    final String baseUrl;
+    final double ratePerSecond;
+    final boolean poissonArrivals;
+    final Duration warmup;
+    final Duration duration;
+    final int accounts;
+    final int pageSize;
+    final int maxInFlight;
+    final Duration requestTimeout;
+    final String reportFile;
+    final Map<Operation, Integer> mix;
+
+    private LoadTestConfig() {
+        baseUrl = stripTrailingSlash(System.getProperty("load.baseUrl", "http://localhost:8080"));
+        ratePerSecond = Double.parseDouble(System.getProperty("load.rate", "500"));
+        poissonArrivals = Boolean.parseBoolean(System.getProperty("load.poisson", "true"));
+        warmup = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 10));
+        duration = Duration.ofSeconds(Long.getLong("load.durationSeconds", 60));
+        accounts = Integer.getInteger("load.accounts", 10_000);
+        pageSize = Integer.getInteger("load.pageSize", 20);
+        maxInFlight = Integer.getInteger("load.maxInFlight", 10_000);
+        requestTimeout = Duration.ofMillis(Long.getLong("load.timeoutMillis", 5_000));
+        reportFile = System.getProperty("load.reportFile");
+        mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.READ, Integer.getInteger("load.mix.read", 80));
+        mix.put(Operation.CREATE, Integer.getInteger("load.mix.create", 4));
+        mix.put(Operation.UPDATE, Integer.getInteger("load.mix.update", 8));
+        mix.put(Operation.DELETE, Integer.getInteger("load.mix.delete", 3));
+        mix.put(Operation.LIST, Integer.getInteger("load.mix.list", 5));
+    }
+
+    static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig();
+        if (config.ratePerSecond <= 0) {
+            throw new IllegalArgumentException("load.rate must be positive");
+        }
+        if (config.accounts < 1 || config.pageSize < 1 || config.maxInFlight < 1) {
+            throw new IllegalArgumentException("load.accounts, load.pageSize and load.maxInFlight must be positive");
+        }
+        int totalWeight = config.mix.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0 || config.mix.values().stream().anyMatch(weight -> weight < 0)) {
+            throw new IllegalArgumentException("load.mix.* weights must be non-negative with a positive sum");
+        }
+        return config;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("baseUrl=%s rate=%.1f/s arrivals=%s warmup=%ds duration=%ds accounts=%d pageSize=%d "
+                                     + "maxInFlight=%d mix=%s",
+                             baseUrl, ratePerSecond, poissonArrivals ? "poisson" : "uniform", warmup.toSeconds(),
+                             duration.toSeconds(), accounts, pageSize, maxInFlight, mix);
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
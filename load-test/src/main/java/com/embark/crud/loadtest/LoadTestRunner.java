@@ -0,0 +1,157 @@
+package com.embark.crud.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for the {@code /users} endpoints of a locally started application.
+ *
+ * <p>Requests are issued on a fixed schedule (uniform or Poisson arrivals at {@code load.rate} per second)
+ * regardless of how fast responses come back, and each latency is measured from the request's scheduled
+ * start rather than its actual send time, so a stalled server shows up in the percentiles instead of silently
+ * lowering the offered load.
+ *
+ * <p>Start the application, then run from this directory:
+ * <pre>
+ * mvn compile exec:java -Dload.rate=2000 -Dload.durationSeconds=120 -Dload.mix.read=70 -Dload.mix.list=20
+ * </pre>
+ * See {@link LoadTestConfig} for the full list of {@code load.*} properties.
+ */
+public final class LoadTestRunner {
+
+    private static final int PRELOAD_CONCURRENCY = 64;
+
+    private final LoadTestConfig config;
+    private final HttpClient httpClient;
+    private final AccountWorkload workload;
+    private final LatencyStats stats = new LatencyStats();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private LoadTestRunner(LoadTestConfig config) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.requestTimeout)
+                .build();
+        this.workload = new AccountWorkload(config);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        System.out.println("Load test: " + config);
+        new LoadTestRunner(config).run();
+    }
+
+    private void run() throws Exception {
+        preload();
+        System.out.printf("Warming up for %d s%n", config.warmup.toSeconds());
+        generate(config.warmup.toNanos());
+        awaitInFlight();
+        stats.reset();
+        System.out.printf("Measuring for %d s%n", config.duration.toSeconds());
+        long elapsedNanos = generate(config.duration.toNanos());
+        awaitInFlight();
+        report(elapsedNanos);
+    }
+
+    /**
+     * Creates the accounts that reads and updates target. Accounts left over from a previous run are reused.
+     */
+    private void preload() throws InterruptedException {
+        System.out.printf("Preloading %d accounts%n", config.accounts);
+        Semaphore permits = new Semaphore(PRELOAD_CONCURRENCY);
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < config.accounts; i++) {
+            permits.acquire();
+            httpClient.sendAsync(workload.preloadRequest(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || (response.statusCode() != 200 && response.statusCode() != 400)) {
+                            failed.incrementAndGet();
+                        }
+                        permits.release();
+                    });
+        }
+        permits.acquire(PRELOAD_CONCURRENCY);
+        if (failed.get() > 0) {
+            throw new IllegalStateException(failed.get() + " accounts could not be preloaded, is the application up at "
+                                                    + config.baseUrl + "?");
+        }
+    }
+
+    /**
+     * Issues requests on the arrival schedule for the given duration and returns the elapsed time. When the
+     * dispatcher falls behind it catches up immediately, keeping the offered rate open-loop.
+     */
+    private long generate(long durationNanos) {
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / config.ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        double scheduled = start;
+        while (scheduled < end) {
+            long intendedStart = (long) scheduled;
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            dispatch(intendedStart);
+            scheduled += config.poissonArrivals
+                    ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void dispatch(long intendedStart) {
+        Operation operation = workload.nextOperation();
+        if (inFlight.incrementAndGet() > config.maxInFlight) {
+            inFlight.decrementAndGet();
+            stats.recordRejection(operation);
+            return;
+        }
+        AccountWorkload.PendingRequest request = workload.requestFor(operation);
+        CompletableFuture<HttpResponse<Void>> response =
+                httpClient.sendAsync(request.httpRequest, HttpResponse.BodyHandlers.discarding());
+        response.whenComplete((result, error) -> {
+            long latency = System.nanoTime() - intendedStart;
+            if (error == null && result.statusCode() / 100 == 2) {
+                stats.recordSuccess(request.operation, latency);
+                workload.onSuccess(request);
+            } else {
+                stats.recordFailure(request.operation, latency);
+            }
+            inFlight.decrementAndGet();
+        });
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.nanoTime() + config.requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private void report(long elapsedNanos) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8)) {
+            out.println(config);
+            out.printf("Offered %.1f req/s for %.1f s%n", config.ratePerSecond, elapsedNanos / 1e9);
+            stats.report(out, elapsedNanos);
+        }
+        String report = buffer.toString(StandardCharsets.UTF_8);
+        System.out.print(report);
+        if (config.reportFile != null) {
+            Files.writeString(Path.of(config.reportFile), report, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.embark.crud.loadtest;
+
+public enum Operation {
+
+    READ,
+    CREATE,
+    UPDATE,
+    DELETE,
+    LIST
+}
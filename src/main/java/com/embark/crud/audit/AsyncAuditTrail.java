@@ -0,0 +1,207 @@
+package com.embark.crud.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit trail that hands events to a background writer through a bounded lock-free queue. Callers only pay
+ * for a CAS on the queue size and a node allocation; formatting and file I/O happen in batches on the writer
+ * thread.
+ */
+@Slf4j
+public class AsyncAuditTrail implements AuditTrail, AutoCloseable {
+
+    private static final long BLOCK_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Queue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final RollingFileWriter fileWriter;
+    private final int capacity;
+    private final int batchSize;
+    private final long idleParkNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    public AsyncAuditTrail(AuditProperties properties) throws IOException {
+        this.fileWriter = new RollingFileWriter(Path.of(properties.getFile()),
+                                                properties.getMaxFileSize().toBytes(),
+                                                properties.getMaxHistory());
+        this.capacity = properties.getQueueCapacity();
+        this.batchSize = properties.getBatchSize();
+        this.idleParkNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.writerThread = new Thread(this::writeLoop, "audit-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * Events recorded once {@link #close()} has begun are counted as dropped rather than queued, as nothing
+     * would write them any more.
+     */
+    @Override
+    public void record(AuditEvent event) {
+        if (!running) {
+            droppedEvents.increment();
+            return;
+        }
+        while (tryReserveSlots(1) == 0) {
+            if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                droppedEvents.increment();
+                return;
+            }
+            LockSupport.parkNanos(BLOCK_BACKOFF_NANOS);
+        }
+        queue.offer(event);
+        if (!running) {
+            withdrawLate(List.of(event));
+        }
+    }
+
+    /**
+     * Reserves queue slots for as many of the events as fit with one CAS, so a commit group hands over its
+     * events at the cost of a single {@link #record(AuditEvent)}.
+     */
+    @Override
+    public void recordAll(List<AuditEvent> events) {
+        if (!running) {
+            droppedEvents.add(events.size());
+            return;
+        }
+        int offered = 0;
+        while (offered < events.size()) {
+            int reserved = tryReserveSlots(events.size() - offered);
+            if (reserved == 0) {
+                if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                    droppedEvents.add(events.size() - offered);
+                    return;
+                }
+                LockSupport.parkNanos(BLOCK_BACKOFF_NANOS);
+            }
+            for (int i = 0; i < reserved; i++) {
+                queue.offer(events.get(offered++));
+            }
+        }
+        if (!running) {
+            withdrawLate(events.subList(0, offered));
+        }
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * Stops accepting events, writes out everything already queued and closes the file. Calling it again has
+     * no effect.
+     */
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            writerThread.join();
+        } else {
+            drainToFile();
+            closeFile();
+        }
+    }
+
+    /**
+     * Reserves up to the wanted number of slots and returns how many were reserved.
+     */
+    private int tryReserveSlots(int wanted) {
+        int size;
+        int reserved;
+        do {
+            size = queueSize.get();
+            reserved = Math.min(wanted, capacity - size);
+            if (reserved <= 0) {
+                return 0;
+            }
+        } while (!queueSize.compareAndSet(size, size + reserved));
+        return reserved;
+    }
+
+    /**
+     * Takes back events that were queued while {@link #close()} began. The final drain always follows the close,
+     * so an event it already took is written, and one still queued would be lost and is counted as dropped.
+     */
+    private void withdrawLate(List<AuditEvent> events) {
+        for (AuditEvent event : events) {
+            if (queue.remove(event)) {
+                queueSize.decrementAndGet();
+                droppedEvents.increment();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            if (drainToFile() == 0) {
+                LockSupport.parkNanos(this, idleParkNanos);
+            }
+        }
+        drainToFile();
+        closeFile();
+    }
+
+    private int drainToFile() {
+        int written = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        AuditEvent event;
+        while ((event = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            batch.add(event.toJsonLine());
+            if (batch.size() == batchSize) {
+                written += writeBatch(batch);
+            }
+        }
+        return written + writeBatch(batch);
+    }
+
+    private int writeBatch(List<String> batch) {
+        int size = batch.size();
+        if (size == 0) {
+            return 0;
+        }
+        try {
+            fileWriter.write(batch);
+        } catch (IOException e) {
+            droppedEvents.add(size);
+            log.warn("Failed to write {} audit events: {}", size, e.getMessage());
+        }
+        batch.clear();
+        return size;
+    }
+
+    private void closeFile() {
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            log.warn("Failed to close audit file: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.embark.crud.audit;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+public class AuditEvent {
+
+    private final long timestamp;
+    private final AuditOperation operation;
+    private final String accountId;
+
+    public AuditEvent(AuditOperation operation, String accountId) {
+        this.timestamp = System.currentTimeMillis();
+        this.operation = operation;
+        this.accountId = accountId;
+    }
+
+    /**
+     * Formats the event as a single JSON line. Called on the audit writer thread, never on the request path.
+     */
+    String toJsonLine() {
+        return "{\"timestamp\":\"" + Instant.ofEpochMilli(timestamp)
+                + "\",\"operation\":\"" + operation
+                + "\",\"accountId\":" + quote(accountId) + "}";
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
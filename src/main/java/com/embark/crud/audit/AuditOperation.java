@@ -0,0 +1,9 @@
+package com.embark.crud.audit;
+
+public enum AuditOperation {
+
+    CREATE,
+    UPDATE,
+    DELETE,
+    EXPIRE
+}
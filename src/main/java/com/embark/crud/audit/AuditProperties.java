@@ -0,0 +1,22 @@
+package com.embark.crud.audit;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "audit")
+public class AuditProperties {
+
+    private boolean enabled = true;
+    private String file = "logs/audit.log";
+    private DataSize maxFileSize = DataSize.ofMegabytes(10);
+    private int maxHistory = 5;
+    private int queueCapacity = 65536;
+    private int batchSize = 512;
+    private long flushIntervalMillis = 100;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+}
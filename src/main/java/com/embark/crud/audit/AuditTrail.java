@@ -0,0 +1,15 @@
+package com.embark.crud.audit;
+
+import java.util.List;
+
+public interface AuditTrail {
+
+    AuditTrail NONE = event -> {
+    };
+
+    void record(AuditEvent event);
+
+    default void recordAll(List<AuditEvent> events) {
+        events.forEach(this::record);
+    }
+}
@@ -0,0 +1,14 @@
+package com.embark.crud.audit;
+
+public enum OverflowPolicy {
+
+    /**
+     * Discards the event and counts it as dropped, so callers never wait on the audit trail.
+     */
+    DROP,
+
+    /**
+     * Waits until the writer frees a slot, so no event is lost at the cost of stalling the caller.
+     */
+    BLOCK
+}
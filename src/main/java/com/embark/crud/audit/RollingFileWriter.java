@@ -0,0 +1,81 @@
+package com.embark.crud.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends lines to a file and rolls it over to {@code file.1 .. file.N} once it grows past the size limit.
+ * Only ever used from the audit writer thread.
+ */
+class RollingFileWriter implements AutoCloseable {
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private OutputStream out;
+    private long fileSize;
+
+    RollingFileWriter(Path file, long maxFileSize, int maxHistory) throws IOException {
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxHistory = maxHistory;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    void write(List<String> lines) throws IOException {
+        for (String line : lines) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            out.write(LINE_SEPARATOR);
+            fileSize += bytes.length + LINE_SEPARATOR.length;
+        }
+        out.flush();
+        if (fileSize >= maxFileSize) {
+            roll();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void open() throws IOException {
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        fileSize = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        out.close();
+        if (maxHistory > 0) {
+            Files.deleteIfExists(historyFile(maxHistory));
+            for (int i = maxHistory - 1; i >= 1; i--) {
+                Path source = historyFile(i);
+                if (Files.exists(source)) {
+                    Files.move(source, historyFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, historyFile(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file);
+        }
+        open();
+    }
+
+    private Path historyFile(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,32 @@
+package com.embark.crud.cache;
+
+/**
+ * Encoded response bodies of single account reads, keyed by account id and the version they were encoded from.
+ */
+public interface AccountResponseCache {
+
+    AccountResponseCache NONE = new AccountResponseCache() {
+
+        @Override
+        public byte[] get(String id, long version) {
+            return null;
+        }
+
+        @Override
+        public void put(String id, long version, byte[] body) {
+        }
+
+        @Override
+        public void evict(String id) {
+        }
+    };
+
+    /**
+     * Returns the body encoded from the given version of the account, or null if there is none.
+     */
+    byte[] get(String id, long version);
+
+    void put(String id, long version, byte[] body);
+
+    void evict(String id);
+}
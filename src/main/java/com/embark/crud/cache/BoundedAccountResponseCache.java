@@ -0,0 +1,122 @@
+package com.embark.crud.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response cache holding at most a fixed number of bodies. A lookup is one hash map read and a version compare,
+ * so a body encoded from a version that has since been replaced is never served.
+ *
+ * <p>Room is made with the CLOCK policy: every body sits in one slot of a ring, a hit marks it referenced, and a
+ * put that needs a slot sweeps the ring from where the last one stopped, giving referenced bodies a second
+ * chance and taking the first slot whose body has not been read since the hand last passed. A body enters
+ * unreferenced, so a cold tail of accounts read once replaces itself instead of the hot accounts. Lookups take
+ * no lock; puts, which only follow a miss that had to encode the body anyway, are serialized, which keeps the
+ * bound exact.
+ */
+public class BoundedAccountResponseCache implements AccountResponseCache {
+
+    private static final class Entry {
+
+        final long version;
+        final byte[] body;
+        final int slot;
+        volatile boolean referenced;
+
+        Entry(long version, byte[] body, int slot) {
+            this.version = version;
+            this.body = body;
+            this.slot = slot;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final String[] slots;
+    private int hand;
+
+    public BoundedAccountResponseCache(int maxEntries) {
+        this.slots = new String[Math.max(maxEntries, 0)];
+    }
+
+    @Override
+    public byte[] get(String id, long version) {
+        Entry entry = entries.get(id);
+        if (entry == null || entry.version != version) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.body;
+    }
+
+    @Override
+    public synchronized void put(String id, long version, byte[] body) {
+        if (slots.length == 0) {
+            return;
+        }
+        Entry current = entries.get(id);
+        if (current != null) {
+            if (version >= current.version) {
+                Entry replacement = new Entry(version, body, current.slot);
+                replacement.referenced = current.referenced;
+                entries.put(id, replacement);
+            }
+            return;
+        }
+        int slot = claimSlot();
+        slots[slot] = id;
+        entries.put(id, new Entry(version, body, slot));
+    }
+
+    @Override
+    public void evict(String id) {
+        entries.remove(id);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Must be called with the cache lock held. A slot is free when no entry claims it any more, which is how
+     * evicted bodies give their slots back. Every referenced body passed is cleared, so this ends within two
+     * turns of the ring.
+     */
+    private int claimSlot() {
+        while (true) {
+            int slot = hand;
+            hand = hand + 1 == slots.length ? 0 : hand + 1;
+            String key = slots[slot];
+            Entry entry = key == null ? null : entries.get(key);
+            if (entry == null || entry.slot != slot) {
+                return slot;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else {
+                entries.remove(key, entry);
+                return slot;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.embark.crud.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "account.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+    private int maxEntries = 10000;
+}
@@ -0,0 +1,27 @@
+package com.embark.crud.config;
+
+import java.io.IOException;
+import com.embark.crud.audit.AsyncAuditTrail;
+import com.embark.crud.audit.AuditProperties;
+import com.embark.crud.audit.AuditTrail;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AsyncAuditTrail asyncAuditTrail(AuditProperties auditProperties) throws IOException {
+        return new AsyncAuditTrail(auditProperties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "audit", name = "enabled", havingValue = "false")
+    public AuditTrail noOpAuditTrail() {
+        return AuditTrail.NONE;
+    }
+}
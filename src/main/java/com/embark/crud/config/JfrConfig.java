@@ -0,0 +1,28 @@
+package com.embark.crud.config;
+
+import java.io.IOException;
+import com.embark.crud.jfr.EventRecording;
+import com.embark.crud.jfr.JfrProperties;
+import com.embark.crud.jfr.RequestEventInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(JfrProperties.class)
+@ConditionalOnProperty(prefix = "jfr", name = "enabled", havingValue = "true")
+public class JfrConfig implements WebMvcConfigurer {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public EventRecording eventRecording(JfrProperties jfrProperties) throws IOException {
+        return new EventRecording(jfrProperties);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestEventInterceptor());
+    }
+}
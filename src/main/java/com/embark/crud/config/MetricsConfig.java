@@ -0,0 +1,36 @@
+package com.embark.crud.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.embark.crud.repository.UserAccountRepositoryImpl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder userAccountMetrics(UserAccountRepositoryImpl userAccountRepository) {
+        return registry -> {
+            Gauge.builder("accounts.stored", userAccountRepository, UserAccountRepositoryImpl::getAccountCount)
+                    .description("Number of stored user accounts")
+                    .register(registry);
+            FunctionCounter.builder("accounts.expired", userAccountRepository, UserAccountRepositoryImpl::getExpiredAccounts)
+                    .description("User accounts removed because their time to live ran out")
+                    .register(registry);
+            Gauge.builder("accounts.snapshots.open", userAccountRepository, UserAccountRepositoryImpl::getOpenSnapshots)
+                    .description("List snapshots held by readers")
+                    .register(registry);
+            FunctionCounter.builder("accounts.transactions.committed", userAccountRepository,
+                                    UserAccountRepositoryImpl::getCommittedTransactions)
+                    .description("Committed account transactions, single writes included")
+                    .register(registry);
+            FunctionCounter.builder("accounts.transactions.commit.groups", userAccountRepository,
+                                    UserAccountRepositoryImpl::getCommitGroups)
+                    .description("Commit groups, each publishing the transactions queued while the previous one ran")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.embark.crud.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import com.embark.crud.cache.AccountResponseCache;
+import com.embark.crud.cache.BoundedAccountResponseCache;
+import com.embark.crud.cache.ResponseCacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "account.response-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public BoundedAccountResponseCache boundedAccountResponseCache(ResponseCacheProperties responseCacheProperties) {
+        return new BoundedAccountResponseCache(responseCacheProperties.getMaxEntries());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "account.response-cache", name = "enabled", havingValue = "false")
+    public AccountResponseCache noOpAccountResponseCache() {
+        return AccountResponseCache.NONE;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "account.response-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MeterBinder accountResponseCacheMetrics(BoundedAccountResponseCache responseCache) {
+        return registry -> {
+            FunctionCounter.builder("accounts.response.cache.hits", responseCache, BoundedAccountResponseCache::getHits)
+                    .description("Account reads answered with an already encoded body")
+                    .register(registry);
+            FunctionCounter.builder("accounts.response.cache.misses", responseCache, BoundedAccountResponseCache::getMisses)
+                    .description("Account reads that had to encode the body")
+                    .register(registry);
+            Gauge.builder("accounts.response.cache.hit.ratio", responseCache, BoundedAccountResponseCache::getHitRatio)
+                    .description("Share of account reads answered with an already encoded body")
+                    .register(registry);
+            Gauge.builder("accounts.response.cache.size", responseCache, BoundedAccountResponseCache::getSize)
+                    .description("Encoded account bodies held by the cache")
+                    .register(registry);
+        };
+    }
+}
@@ -6,11 +6,24 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.List;
+import com.embark.crud.cache.AccountResponseCache;
 import com.embark.crud.exception.AccountAlreadyExistsException;
 import com.embark.crud.exception.AccountNotFoundException;
+import com.embark.crud.exception.SnapshotNotFoundException;
+import com.embark.crud.jfr.SerializationEvent;
+import com.embark.crud.model.AccountListQuery;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.AccountOperationType;
+import com.embark.crud.model.PageLinks;
+import com.embark.crud.model.PagedResult;
+import com.embark.crud.model.SortDirection;
+import com.embark.crud.model.SortField;
 import com.embark.crud.model.UserAccount;
 import com.embark.crud.service.CrudService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +34,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
 @RequestMapping(value = "/users")
@@ -30,47 +45,85 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserAccountController {
 
     private final CrudService<UserAccount> crudService;
+    private final AccountResponseCache accountResponseCache;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ApiOperation(value = "Create user account",
-                  notes = "Creates new user account if it is not exists or returns HttpStatus.BAD_REQUEST if it exists")
+                  notes = "Creates new user account if it is not exists or returns HttpStatus.BAD_REQUEST if it exists. "
+                          + "An account with ttlSeconds is removed once that many seconds have passed")
     public ResponseEntity<UserAccount> createAccount(@RequestBody UserAccount userAccount) {
         if (userAccount.getId() == null) {
             log.error("Account id can't be null");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        if (userAccount.getTtlSeconds() != null && userAccount.getTtlSeconds() <= 0) {
+            log.error("Account ttl must be positive");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
         try {
             return ResponseEntity.ok(crudService.createAccount(userAccount));
         } catch (AccountAlreadyExistsException e) {
-            log.error(e.getMessage());
+            log.debug(e.getMessage());
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * Looks up the version of the account first, so a body already encoded from that version is written out
+     * as is and only a miss reads and encodes the account.
+     */
     @GetMapping("{id}")
-    @ApiOperation(value = "Get user account",
-                  notes = "Returns existing user account according to the provided user account id or returns HttpStatus.NOT_FOUND if account not found")
-    public ResponseEntity<UserAccount> readAccount(@PathVariable final String id) {
+    @ApiOperation(value = "Get user account", response = UserAccount.class,
+                  notes = "Returns existing user account according to the provided user account id or returns HttpStatus.NOT_FOUND if account not found. "
+                          + "The ttlSeconds of an expiring account are the seconds left, rounded up")
+    public ResponseEntity<byte[]> readAccount(@PathVariable final String id) throws JsonProcessingException {
         try {
-            return ResponseEntity.ok(crudService.readAccount(id));
+            long version = crudService.readAccountVersion(id);
+            SerializationEvent event = new SerializationEvent();
+            event.begin();
+            byte[] body = accountResponseCache.get(id, version);
+            boolean cached = body != null;
+            if (!cached) {
+                UserAccount userAccount = crudService.readAccount(id);
+                // Restarted so that only the encoding is timed; the read has a repository event of its own
+                event.begin();
+                body = objectMapper.writeValueAsBytes(userAccount);
+                // The ttlSeconds left change while the version stays, so bodies of expiring accounts are not reused
+                if (userAccount.getVersion() != null && userAccount.getTtlSeconds() == null) {
+                    accountResponseCache.put(id, userAccount.getVersion(), body);
+                }
+            }
+            event.complete(id, body.length, cached);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(body);
         } catch (AccountNotFoundException e) {
-            log.error(e.getMessage());
+            log.debug(e.getMessage());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 
     @PutMapping
     @ApiOperation(value = "Update user account",
-                  notes = "Updates user account if it exists or returns HttpStatus.NOT_FOUND if account not found")
+                  notes = "Updates user account if it exists or returns HttpStatus.NOT_FOUND if account not found. "
+                          + "The ttlSeconds of the update replaces any previous expiry, and no ttlSeconds keeps the account. "
+                          + "Writing back an account as read keeps its expiry, as reads return the ttlSeconds left")
     public ResponseEntity<UserAccount> updateAccount(@RequestBody UserAccount userAccount) {
         if (userAccount.getId() == null) {
             log.error("Account id can't be null");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        if (userAccount.getTtlSeconds() != null && userAccount.getTtlSeconds() <= 0) {
+            log.error("Account ttl must be positive");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
         try {
-            return ResponseEntity.ok(crudService.updateAccount(userAccount));
+            UserAccount previousAccount = crudService.updateAccount(userAccount);
+            accountResponseCache.evict(userAccount.getId());
+            return ResponseEntity.ok(previousAccount);
         } catch (AccountNotFoundException e) {
-            log.error(e.getMessage());
+            log.debug(e.getMessage());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
@@ -80,21 +133,128 @@ public class UserAccountController {
                   notes = "Deletes existing user account according to the provided account id or returns HttpStatus.NOT_FOUND if account not found")
     public ResponseEntity<UserAccount> deleteAccount(@PathVariable final String id) {
         try {
-            return ResponseEntity.ok(crudService.deleteAccount(id));
+            UserAccount deletedAccount = crudService.deleteAccount(id);
+            accountResponseCache.evict(id);
+            return ResponseEntity.ok(deletedAccount);
         } catch (AccountNotFoundException e) {
-            log.error(e.getMessage());
+            log.debug(e.getMessage());
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @PostMapping("transactions")
+    @ApiOperation(value = "Execute user account transaction",
+                  notes = "Applies the create, update and delete operations in order and all together, or none of them. "
+                          + "Returns the created account for a create and the previous account for an update or a delete, "
+                          + "HttpStatus.NOT_FOUND if an updated or deleted account does not exist and HttpStatus.BAD_REQUEST "
+                          + "if a created account already exists or an operation is incomplete")
+    public ResponseEntity<List<UserAccount>> executeTransaction(@RequestBody List<AccountOperation<UserAccount>> operations) {
+        if (operations.isEmpty() || !operations.stream().allMatch(this::isValidOperation)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            List<UserAccount> results = crudService.executeTransaction(operations);
+            operations.forEach(operation -> accountResponseCache.evict(idOf(operation)));
+            return ResponseEntity.ok(results);
+        } catch (AccountAlreadyExistsException e) {
+            log.debug(e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (AccountNotFoundException e) {
+            log.debug(e.getMessage());
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 
     @GetMapping
     @ApiOperation(value = "Get user account list",
-                  notes = "Returns user account list with pagination")
-    public ResponseEntity<List<UserAccount>> readAccountList(@RequestParam final int page, @RequestParam final int size) {
+                  notes = "Returns user account page with total count and links to the next and previous pages, optionally "
+                          + "filtered by email domain and username prefix and sorted by id, username or email in ascending "
+                          + "or descending order. Every page names the snapshot it was read from, and passing that snapshot "
+                          + "on later requests pages through the same state while writes go on, or returns HttpStatus.GONE "
+                          + "once the snapshot has expired")
+    public ResponseEntity<PagedResult<UserAccount>> readAccountList(@RequestParam final int page,
+                                                                    @RequestParam final int size,
+                                                                    @RequestParam(required = false) final String emailDomain,
+                                                                    @RequestParam(required = false) final String usernamePrefix,
+                                                                    @RequestParam(defaultValue = "id") final String sort,
+                                                                    @RequestParam(defaultValue = "asc") final String direction,
+                                                                    @RequestParam(required = false) final String snapshot) {
         if (page < 1 || size < 0) {
             log.error("Page can't be less than 1 and size can't be less than 0");
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-        return ResponseEntity.ok(crudService.readAccountList(page, size));
+        AccountListQuery query;
+        try {
+            query = AccountListQuery.builder()
+                    .emailDomain(emailDomain)
+                    .usernamePrefix(usernamePrefix)
+                    .sortField(SortField.fromValue(sort))
+                    .sortDirection(SortDirection.fromValue(direction))
+                    .snapshot(snapshot)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.error("Sort must be one of id, username, email and direction must be asc or desc");
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        PagedResult<UserAccount> result;
+        try {
+            result = crudService.readAccountPage(page, size, query);
+        } catch (SnapshotNotFoundException e) {
+            log.debug(e.getMessage());
+            return new ResponseEntity<>(HttpStatus.GONE);
+        }
+        return ResponseEntity.ok(result.toBuilder()
+                                         .links(linksOf(result))
+                                         .build());
+    }
+
+    private static String idOf(AccountOperation<UserAccount> operation) {
+        return operation.getType() == AccountOperationType.DELETE ? operation.getId() : operation.getAccount().getId();
+    }
+
+    private boolean isValidOperation(AccountOperation<UserAccount> operation) {
+        if (operation == null) {
+            log.error("Operation can't be null");
+            return false;
+        }
+        if (operation.getType() == null) {
+            log.error("Operation type can't be null");
+            return false;
+        }
+        if (operation.getType() == AccountOperationType.DELETE) {
+            if (operation.getId() == null) {
+                log.error("Account id can't be null");
+                return false;
+            }
+            return true;
+        }
+        UserAccount userAccount = operation.getAccount();
+        if (userAccount == null || userAccount.getId() == null) {
+            log.error("Account id can't be null");
+            return false;
+        }
+        if (userAccount.getTtlSeconds() != null && userAccount.getTtlSeconds() <= 0) {
+            log.error("Account ttl must be positive");
+            return false;
+        }
+        return true;
+    }
+
+    private PageLinks linksOf(PagedResult<UserAccount> result) {
+        int page = result.getPage();
+        return PageLinks.builder()
+                .self(pageLink(page, result.getSnapshot()))
+                .next(page < result.getTotalPages() ? pageLink(page + 1, result.getSnapshot()) : null)
+                .prev(page > 1 ? pageLink(page - 1, result.getSnapshot()) : null)
+                .build();
+    }
+
+    private String pageLink(long page, String snapshot) {
+        UriComponentsBuilder builder = ServletUriComponentsBuilder.fromCurrentRequest();
+        if (snapshot != null) {
+            builder.replaceQueryParam("snapshot", snapshot);
+        }
+        return builder.replaceQueryParam("page", page)
+                .toUriString();
     }
 }
@@ -0,0 +1,8 @@
+package com.embark.crud.exception;
+
+public class SnapshotNotFoundException extends RuntimeException {
+
+    public SnapshotNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,53 @@
+package com.embark.crud.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Flight recording of the repository, request and serialization events, written to the configured file when the
+ * application shuts down.
+ */
+@Slf4j
+public class EventRecording implements AutoCloseable {
+
+    static final List<Class<? extends Event>> EVENT_TYPES =
+            List.of(RepositoryOperationEvent.class, RequestEvent.class, SerializationEvent.class);
+
+    private final Recording recording = new Recording();
+    private final Path file;
+
+    public EventRecording(JfrProperties jfrProperties) throws IOException {
+        file = Paths.get(jfrProperties.getFile()).toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        recording.setName("embark-crud");
+        for (Class<? extends Event> eventType : EVENT_TYPES) {
+            recording.enable(eventType).withThreshold(jfrProperties.getThreshold());
+        }
+        recording.setDestination(file);
+    }
+
+    public void start() {
+        recording.start();
+        log.info("Recording repository and request events to {}", file);
+    }
+
+    /**
+     * Stops the recording, which writes it to the file. On JVM exit the JFR shutdown hook may have done so already.
+     */
+    @Override
+    public void close() {
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        recording.close();
+        log.info("Wrote repository and request events to {}", file);
+    }
+}
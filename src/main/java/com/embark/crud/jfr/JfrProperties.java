@@ -0,0 +1,17 @@
+package com.embark.crud.jfr;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "jfr")
+public class JfrProperties {
+
+    private boolean enabled = false;
+    private String file = "logs/crud.jfr";
+    private Duration threshold = Duration.ZERO;
+}
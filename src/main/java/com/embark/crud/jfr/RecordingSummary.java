@@ -0,0 +1,142 @@
+package com.embark.crud.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a flight recording and summarizes the repository, request and serialization events in it: count, total
+ * and maximum duration per operation, and the slowest single events.
+ * <p>
+ * Usage: {@code RecordingSummary <recording.jfr> [slowest]}
+ */
+@Value
+public class RecordingSummary {
+
+    private static final Set<String> EVENT_NAMES =
+            Set.of(RepositoryOperationEvent.NAME, RequestEvent.NAME, SerializationEvent.NAME);
+    private static final int DEFAULT_SLOWEST = 10;
+
+    List<OperationStats> operations;
+    List<SlowEvent> slowest;
+
+    @Value
+    public static class OperationStats {
+
+        String event;
+        String operation;
+        long count;
+        Duration total;
+        Duration max;
+    }
+
+    @Value
+    public static class SlowEvent {
+
+        String event;
+        String operation;
+        Duration duration;
+        String detail;
+    }
+
+    public static RecordingSummary of(Path recording, int slowest) throws IOException {
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recording).stream()
+                .filter(event -> EVENT_NAMES.contains(event.getEventType().getName()))
+                .collect(Collectors.toList());
+
+        Map<String, List<RecordedEvent>> byOperation = new LinkedHashMap<>();
+        for (RecordedEvent event : events) {
+            byOperation.computeIfAbsent(shortName(event) + " " + operationOf(event), key -> new ArrayList<>()).add(event);
+        }
+        List<OperationStats> operations = byOperation.values().stream()
+                .map(RecordingSummary::statsOf)
+                .sorted(Comparator.comparing(OperationStats::getTotal).reversed())
+                .collect(Collectors.toList());
+
+        List<SlowEvent> slowEvents = events.stream()
+                .sorted(Comparator.comparing((RecordedEvent event) -> event.getDuration()).reversed())
+                .limit(slowest)
+                .map(event -> new SlowEvent(shortName(event), operationOf(event), event.getDuration(), detailOf(event)))
+                .collect(Collectors.toList());
+        return new RecordingSummary(operations, slowEvents);
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-20s %-28s %8s %16s %16s%n", "EVENT", "OPERATION", "COUNT", "TOTAL", "MAX"));
+        for (OperationStats stats : operations) {
+            out.append(String.format("%-20s %-28s %8d %16s %16s%n", stats.getEvent(), stats.getOperation(),
+                                     stats.getCount(), stats.getTotal(), stats.getMax()));
+        }
+        out.append(String.format("%nSlowest %d events%n", slowest.size()));
+        for (SlowEvent event : slowest) {
+            out.append(String.format("%16s  %-20s %-28s %s%n", event.getDuration(), event.getEvent(),
+                                     event.getOperation(), event.getDetail()));
+        }
+        return out.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: RecordingSummary <recording.jfr> [slowest]");
+            System.exit(1);
+        }
+        int slowest = args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_SLOWEST;
+        System.out.print(of(Paths.get(args[0]), slowest).format());
+    }
+
+    private static OperationStats statsOf(List<RecordedEvent> events) {
+        RecordedEvent first = events.get(0);
+        Duration total = Duration.ZERO;
+        Duration max = Duration.ZERO;
+        for (RecordedEvent event : events) {
+            total = total.plus(event.getDuration());
+            if (event.getDuration().compareTo(max) > 0) {
+                max = event.getDuration();
+            }
+        }
+        return new OperationStats(shortName(first), operationOf(first), events.size(), total, max);
+    }
+
+    private static String shortName(RecordedEvent event) {
+        String name = event.getEventType().getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static String operationOf(RecordedEvent event) {
+        switch (event.getEventType().getName()) {
+            case RepositoryOperationEvent.NAME:
+                return event.getString("operation");
+            case RequestEvent.NAME:
+                return event.getString("method") + " " + event.getString("handler");
+            default:
+                return event.getBoolean("cached") ? "CACHED" : "ENCODED";
+        }
+    }
+
+    private static String detailOf(RecordedEvent event) {
+        switch (event.getEventType().getName()) {
+            case RepositoryOperationEvent.NAME:
+                return String.format("id=%s operations=%d lockWait=%s lockHold=%s result=%s",
+                                     event.getString("accountId"), event.getInt("operations"),
+                                     event.getDuration("lockWait"), event.getDuration("lockHold"),
+                                     event.getString("result"));
+            case RequestEvent.NAME:
+                return String.format("path=%s status=%d", event.getString("path"), event.getInt("status"));
+            default:
+                return String.format("id=%s bytes=%d", event.getString("accountId"), event.getInt("bytes"));
+        }
+    }
+}
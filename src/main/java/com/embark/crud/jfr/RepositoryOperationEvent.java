@@ -0,0 +1,68 @@
+package com.embark.crud.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One repository operation. The event is disabled unless a recording enables it, and then the JIT reduces
+ * {@link #begin()} and {@link #complete} to a flag check, so callers create one for every operation and only
+ * measure lock times when {@link #isEnabled()} says a recording wants them.
+ */
+@Name(RepositoryOperationEvent.NAME)
+@Label("Repository Operation")
+@Category({"Embark CRUD", "Repository"})
+@Description("A user account repository operation with the time spent waiting for and holding its locks")
+@Enabled(false)
+@StackTrace(false)
+public class RepositoryOperationEvent extends Event {
+
+    public static final String NAME = "com.embark.crud.RepositoryOperation";
+    public static final String OK = "OK";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Account Id")
+    private String accountId;
+
+    @Label("Operations")
+    @Description("Number of account operations, more than one for a transaction")
+    private int operations;
+
+    @Label("Lock Wait")
+    @Timespan
+    private long lockWait;
+
+    @Label("Lock Hold")
+    @Timespan
+    private long lockHold;
+
+    @Label("Result")
+    private String result;
+
+    public void lockTimes(long lockWaitNanos, long lockHoldNanos) {
+        lockWait = lockWaitNanos;
+        lockHold = lockHoldNanos;
+    }
+
+    public void complete(String operation, String accountId, int operations, String result) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.accountId = accountId;
+            this.operations = operations;
+            this.result = result;
+            commit();
+        }
+    }
+
+    public static String resultOf(RuntimeException e) {
+        return e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,46 @@
+package com.embark.crud.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Handling of one HTTP request by a controller, from the handler being picked to the response being complete.
+ */
+@Name(RequestEvent.NAME)
+@Label("Request")
+@Category({"Embark CRUD", "Controller"})
+@Description("An HTTP request handled by a controller")
+@Enabled(false)
+@StackTrace(false)
+public class RequestEvent extends Event {
+
+    public static final String NAME = "com.embark.crud.Request";
+
+    @Label("Method")
+    private String method;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Handler")
+    private String handler;
+
+    @Label("Status")
+    private int status;
+
+    public void complete(String method, String path, String handler, int status) {
+        end();
+        if (shouldCommit()) {
+            this.method = method;
+            this.path = path;
+            this.handler = handler;
+            this.status = status;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.embark.crud.jfr;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Records a {@link RequestEvent} around every handled request while a recording has the event enabled.
+ */
+public class RequestEventInterceptor implements HandlerInterceptor {
+
+    private static final String EVENT_ATTRIBUTE = RequestEventInterceptor.class.getName() + ".event";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestEvent event = new RequestEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            request.setAttribute(EVENT_ATTRIBUTE, event);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestEvent event = (RequestEvent) request.getAttribute(EVENT_ATTRIBUTE);
+        if (event != null) {
+            String handlerName = handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethod().getName() : null;
+            event.complete(request.getMethod(), request.getRequestURI(), handlerName, response.getStatus());
+        }
+    }
+}
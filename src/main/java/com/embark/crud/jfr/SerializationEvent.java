@@ -0,0 +1,44 @@
+package com.embark.crud.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Production of the JSON body of one account response, either encoded or taken from the response cache.
+ */
+@Name(SerializationEvent.NAME)
+@Label("Serialization")
+@Category({"Embark CRUD", "Controller"})
+@Description("The JSON body of an account response being encoded or taken from the response cache")
+@Enabled(false)
+@StackTrace(false)
+public class SerializationEvent extends Event {
+
+    public static final String NAME = "com.embark.crud.Serialization";
+
+    @Label("Account Id")
+    private String accountId;
+
+    @Label("Body Size")
+    @DataAmount
+    private int bytes;
+
+    @Label("Cached")
+    private boolean cached;
+
+    public void complete(String accountId, int bytes, boolean cached) {
+        end();
+        if (shouldCommit()) {
+            this.accountId = accountId;
+            this.bytes = bytes;
+            this.cached = cached;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.embark.crud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class AccountListQuery {
+
+    private String emailDomain;
+    private String usernamePrefix;
+    @Builder.Default
+    private SortField sortField = SortField.ID;
+    @Builder.Default
+    private SortDirection sortDirection = SortDirection.ASC;
+    private String snapshot;
+
+    public boolean hasFilters() {
+        return emailDomain != null || usernamePrefix != null;
+    }
+}
@@ -0,0 +1,39 @@
+package com.embark.crud.model;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * One step of an account transaction. Creates and updates carry the account, deletes only the account id.
+ */
+@Value
+@Builder
+@Jacksonized
+public class AccountOperation<T> {
+
+    private AccountOperationType type;
+    private String id;
+    private T account;
+
+    public static <T> AccountOperation<T> create(T account) {
+        return AccountOperation.<T>builder()
+                .type(AccountOperationType.CREATE)
+                .account(account)
+                .build();
+    }
+
+    public static <T> AccountOperation<T> update(T account) {
+        return AccountOperation.<T>builder()
+                .type(AccountOperationType.UPDATE)
+                .account(account)
+                .build();
+    }
+
+    public static <T> AccountOperation<T> delete(String id) {
+        return AccountOperation.<T>builder()
+                .type(AccountOperationType.DELETE)
+                .id(id)
+                .build();
+    }
+}
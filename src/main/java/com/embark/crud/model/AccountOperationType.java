@@ -0,0 +1,8 @@
+package com.embark.crud.model;
+
+public enum AccountOperationType {
+
+    CREATE,
+    UPDATE,
+    DELETE
+}
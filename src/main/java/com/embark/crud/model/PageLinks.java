@@ -0,0 +1,16 @@
+package com.embark.crud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageLinks {
+
+    private String self;
+    private String next;
+    private String prev;
+}
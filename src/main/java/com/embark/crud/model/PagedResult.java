@@ -0,0 +1,23 @@
+package com.embark.crud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder(toBuilder = true)
+public class PagedResult<T> {
+
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private long totalPages;
+    private PageLinks links;
+    private String snapshot;
+
+    public static long totalPages(long totalElements, int size) {
+        return size == 0 ? 0 : (totalElements + size - 1) / size;
+    }
+}
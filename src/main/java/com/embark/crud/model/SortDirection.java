@@ -0,0 +1,13 @@
+package com.embark.crud.model;
+
+import java.util.Locale;
+
+public enum SortDirection {
+
+    ASC,
+    DESC;
+
+    public static SortDirection fromValue(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,14 @@
+package com.embark.crud.model;
+
+import java.util.Locale;
+
+public enum SortField {
+
+    ID,
+    USERNAME,
+    EMAIL;
+
+    public static SortField fromValue(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -1,16 +1,52 @@
 package com.embark.crud.model;
 
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.Setter;
+import lombok.ToString;
+import lombok.Value;
+import lombok.With;
+import lombok.extern.jackson.Jacksonized;
 
-@Getter
-@Setter
-@Builder
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Immutable user account. Changes are made with the with-ers or {@link #toBuilder()}, which return new instances,
+ * so an account can be handed to any thread without locking. The password array is copied on the way in and on
+ * the way out, because an array handed out could otherwise be changed by its receiver.
+ *
+ * <p>Immutability makes a decoded account safe to share, not free to read: the repository stores packed records,
+ * so every read decodes a new instance, and every {@link #getPassword()} call copies the array.
+ */
+@Value
+@Builder(toBuilder = true)
+@With
+@Jacksonized
 public class UserAccount {
 
     private String id;
     private String email;
     private String username;
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
     private char[] password;
+    @EqualsAndHashCode.Exclude
+    private Long ttlSeconds;
+    @EqualsAndHashCode.Exclude
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    private UserAccount(String id, String email, String username, char[] password, Long ttlSeconds, Long version) {
+        this.id = id;
+        this.email = email;
+        this.username = username;
+        this.password = password == null ? null : password.clone();
+        this.ttlSeconds = ttlSeconds;
+        this.version = version;
+    }
+
+    public char[] getPassword() {
+        return password == null ? null : password.clone();
+    }
 }
@@ -0,0 +1,261 @@
+package com.embark.crud.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import com.embark.crud.model.UserAccount;
+
+/**
+ * Compact stored form of one version of a {@link UserAccount}. Email, username and password are packed into one
+ * UTF-8 byte array, each preceded by a varint of its length plus one (zero marks a null field), and the id is the
+ * very String instance used as the map key. A record costs two objects instead of the five a bean with three
+ * Strings and a UTF-16 password needs, and {@link UserAccount} objects are only materialized for callers.
+ *
+ * <p>A record is visible to snapshots from the version that created it up to, excluding, the version that
+ * replaced or deleted it, and links to the version it replaced so older snapshots can still reach it. It also
+ * keeps the expiry deadline it was written with, so reads return the remaining time to live and a client that
+ * writes back what it read keeps the account's expiry.
+ */
+final class AccountRecord {
+
+    enum Field {
+        EMAIL,
+        USERNAME,
+        PASSWORD
+    }
+
+    private static final String PROBE_ID = "";
+    private static final long NEVER = Long.MAX_VALUE;
+    static final long NO_EXPIRY = 0;
+
+    final String id;
+    final long createdVersion;
+    final long expiresAtMillis;
+    private final byte[] data;
+    private volatile long supersededVersion = NEVER;
+    private volatile AccountRecord previous;
+
+    private AccountRecord(String id, long createdVersion, long expiresAtMillis, byte[] data, AccountRecord previous) {
+        this.id = id;
+        this.createdVersion = createdVersion;
+        this.expiresAtMillis = expiresAtMillis;
+        this.data = data;
+        this.previous = previous;
+    }
+
+    /**
+     * Packs a version of the account that expires at the given time, or never for {@link #NO_EXPIRY}.
+     */
+    static AccountRecord of(UserAccount userAccount, long version, long expiresAtMillis, AccountRecord previous) {
+        return new AccountRecord(userAccount.getId(), version, expiresAtMillis, pack(encode(userAccount.getEmail()),
+                                                                                     encode(userAccount.getUsername()),
+                                                                                     encode(userAccount.getPassword())),
+                                 previous);
+    }
+
+    /**
+     * Record that sorts before every real record whose field equals the given value, used as a range bound.
+     */
+    static AccountRecord probe(Field field, byte[] value) {
+        byte[][] fields = new byte[Field.values().length][];
+        fields[field.ordinal()] = value;
+        return new AccountRecord(PROBE_ID, Long.MIN_VALUE, NO_EXPIRY, pack(fields), null);
+    }
+
+    static Comparator<AccountRecord> comparing(Field field) {
+        return (first, second) -> {
+            long firstSlice = first.slice(field);
+            long secondSlice = second.slice(field);
+            int result = Arrays.compareUnsigned(first.data, offset(firstSlice), offset(firstSlice) + length(firstSlice),
+                                                second.data, offset(secondSlice), offset(secondSlice) + length(secondSlice));
+            if (result == 0) {
+                result = first.id.compareTo(second.id);
+            }
+            return result != 0 ? result : Long.compare(first.createdVersion, second.createdVersion);
+        };
+    }
+
+    boolean isCurrent() {
+        return supersededVersion == NEVER;
+    }
+
+    boolean isVisibleAt(long version) {
+        return createdVersion <= version && version < supersededVersion;
+    }
+
+    /**
+     * Walks from this version to older ones and returns the one visible at the given version, or null if the
+     * account did not exist then.
+     */
+    AccountRecord visibleAt(long version) {
+        for (AccountRecord accountRecord = this; accountRecord != null; accountRecord = accountRecord.previous) {
+            if (accountRecord.createdVersion <= version) {
+                return version < accountRecord.supersededVersion ? accountRecord : null;
+            }
+        }
+        return null;
+    }
+
+    void supersede(long version) {
+        supersededVersion = version;
+    }
+
+    long supersededVersion() {
+        return supersededVersion;
+    }
+
+    AccountRecord previous() {
+        return previous;
+    }
+
+    void truncateHistory() {
+        previous = null;
+    }
+
+    /**
+     * Decodes the account with the seconds left until its deadline as seen at the given time, rounded up, or
+     * no time to live if it never expires.
+     */
+    UserAccount toUserAccount(long nowMillis) {
+        return UserAccount.builder()
+                .id(id)
+                .email(decodeString(Field.EMAIL))
+                .username(decodeString(Field.USERNAME))
+                .password(decodeChars(Field.PASSWORD))
+                .ttlSeconds(remainingTtlSeconds(nowMillis))
+                .version(createdVersion)
+                .build();
+    }
+
+    private Long remainingTtlSeconds(long nowMillis) {
+        if (expiresAtMillis == NO_EXPIRY) {
+            return null;
+        }
+        long remainingMillis = Math.max(expiresAtMillis - nowMillis, 0);
+        return remainingMillis / 1000 + (remainingMillis % 1000 == 0 ? 0 : 1);
+    }
+
+    boolean fieldStartsWith(Field field, byte[] prefix) {
+        long slice = slice(field);
+        if (isNull(slice) || length(slice) < prefix.length) {
+            return false;
+        }
+        return Arrays.equals(data, offset(slice), offset(slice) + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Suffix match that ignores the case of ASCII letters, which is enough for domain names.
+     */
+    boolean fieldEndsWithIgnoreAsciiCase(Field field, byte[] suffix) {
+        long slice = slice(field);
+        if (isNull(slice) || length(slice) < suffix.length) {
+            return false;
+        }
+        int start = offset(slice) + length(slice) - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (toAsciiLowerCase(data[start + i]) != toAsciiLowerCase(suffix[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decodeString(Field field) {
+        long slice = slice(field);
+        return isNull(slice) ? null : new String(data, offset(slice), length(slice), StandardCharsets.UTF_8);
+    }
+
+    private char[] decodeChars(Field field) {
+        long slice = slice(field);
+        if (isNull(slice)) {
+            return null;
+        }
+        CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(data, offset(slice), length(slice)));
+        return Arrays.copyOf(chars.array(), chars.limit());
+    }
+
+    /**
+     * Locates a field and returns its offset in the upper and its length in the lower half of a long,
+     * with a length of -1 for a null field.
+     */
+    private long slice(Field field) {
+        int position = 0;
+        for (int index = 0; ; index++) {
+            int header = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                header |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int length = header - 1;
+            if (index == field.ordinal()) {
+                return ((long) position << 32) | (length & 0xFFFFFFFFL);
+            }
+            position += Math.max(length, 0);
+        }
+    }
+
+    private static int offset(long slice) {
+        return (int) (slice >>> 32);
+    }
+
+    private static int length(long slice) {
+        return Math.max((int) slice, 0);
+    }
+
+    private static boolean isNull(long slice) {
+        return (int) slice < 0;
+    }
+
+    private static byte[] pack(byte[]... fields) {
+        int size = 0;
+        for (byte[] field : fields) {
+            int header = field == null ? 0 : field.length + 1;
+            size += varintSize(header) + (field == null ? 0 : field.length);
+        }
+        byte[] data = new byte[size];
+        int position = 0;
+        for (byte[] field : fields) {
+            int header = field == null ? 0 : field.length + 1;
+            while ((header & ~0x7F) != 0) {
+                data[position++] = (byte) ((header & 0x7F) | 0x80);
+                header >>>= 7;
+            }
+            data[position++] = (byte) header;
+            if (field != null) {
+                System.arraycopy(field, 0, data, position, field.length);
+                position += field.length;
+            }
+        }
+        return data;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(char[] value) {
+        if (value == null) {
+            return null;
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(value));
+        return Arrays.copyOf(bytes.array(), bytes.limit());
+    }
+
+    private static byte toAsciiLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+}
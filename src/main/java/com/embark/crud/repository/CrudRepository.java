@@ -1,6 +1,9 @@
 package com.embark.crud.repository;
 
 import java.util.List;
+import com.embark.crud.model.AccountListQuery;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.PagedResult;
 
 public interface CrudRepository<T> {
 
@@ -8,9 +11,15 @@ public interface CrudRepository<T> {
 
     T readAccount(String id);
 
+    long readAccountVersion(String id);
+
     T updateAccount(T t);
 
     T deleteAccount(String id);
 
+    List<T> executeTransaction(List<AccountOperation<T>> operations);
+
     List<T> readAccountList(int page, int size);
+
+    PagedResult<T> readAccountPage(int page, int size, AccountListQuery query);
 }
@@ -0,0 +1,94 @@
+package com.embark.crud.repository;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Snapshots that list readers hold, keyed by the version they read at. A new snapshot is only held for a short
+ * first lease, as most clients never ask for a second page. Once a client follows its token, every read through
+ * it renews the full lease, so a client paging through a list keeps its versions alive and an abandoned one is
+ * released when the lease runs out. The oldest held version bounds which versions the collector may drop.
+ *
+ * <p>Opening a snapshot and computing the oldest held version are serialized on the registry, so a snapshot is
+ * either seen by the collector or opened at a version no older than the one the collector works with.
+ */
+class SnapshotRegistry {
+
+    static final class Snapshot {
+
+        final long version;
+        final long count;
+        private long leaseExpiresAtMillis;
+
+        Snapshot(long version, long count) {
+            this.version = version;
+            this.count = count;
+        }
+
+        String token() {
+            return Long.toString(version, Character.MAX_RADIX);
+        }
+    }
+
+    private final NavigableMap<Long, Snapshot> snapshots = new TreeMap<>();
+    private final long leaseMillis;
+    private final long firstLeaseMillis;
+    private final Clock clock;
+
+    SnapshotRegistry(long leaseMillis, long firstLeaseMillis, Clock clock) {
+        this.leaseMillis = leaseMillis;
+        this.firstLeaseMillis = firstLeaseMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Opens a snapshot at the latest committed state on the first lease, sharing it with readers that opened the
+     * same version. A lease the shared snapshot already holds is never shortened.
+     */
+    synchronized Snapshot open(Supplier<Snapshot> committed) {
+        Snapshot latest = committed.get();
+        Snapshot snapshot = snapshots.computeIfAbsent(latest.version, version -> latest);
+        snapshot.leaseExpiresAtMillis = Math.max(snapshot.leaseExpiresAtMillis, clock.millis() + firstLeaseMillis);
+        return snapshot;
+    }
+
+    /**
+     * Renews the full lease of the snapshot a token refers to and returns it, or null if the token is malformed or its lease has run out.
+     */
+    synchronized Snapshot reopen(String token) {
+        long version;
+        try {
+            version = Long.parseLong(token, Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long now = clock.millis();
+        Snapshot snapshot = snapshots.get(version);
+        if (snapshot == null || snapshot.leaseExpiresAtMillis <= now) {
+            return null;
+        }
+        snapshot.leaseExpiresAtMillis = now + leaseMillis;
+        return snapshot;
+    }
+
+    /**
+     * Releases expired snapshots and returns the oldest version still held, or the committed version if none is.
+     */
+    synchronized long oldestVersion(long committedVersion) {
+        long now = clock.millis();
+        Iterator<Snapshot> iterator = snapshots.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().leaseExpiresAtMillis <= now) {
+                iterator.remove();
+            }
+        }
+        return snapshots.isEmpty() ? committedVersion : Math.min(snapshots.firstKey(), committedVersion);
+    }
+
+    synchronized int size() {
+        return snapshots.size();
+    }
+}
@@ -0,0 +1,61 @@
+package com.embark.crud.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import com.embark.crud.model.SortDirection;
+
+/**
+ * Secondary index that keeps records ordered by the UTF-8 bytes of a single field, with the account id and the
+ * record version as tie breakers. The index holds the records themselves, so it adds one skip-list node per
+ * stored version and no keys. Writers maintain it together with the primary map, so ordered reads never have to sort.
+ */
+class SortedIndex {
+
+    private final AccountRecord.Field field;
+    private final NavigableSet<AccountRecord> entries;
+
+    SortedIndex(AccountRecord.Field field) {
+        this.field = field;
+        this.entries = new ConcurrentSkipListSet<>(AccountRecord.comparing(field));
+    }
+
+    void add(AccountRecord accountRecord) {
+        entries.add(accountRecord);
+    }
+
+    void remove(AccountRecord accountRecord) {
+        entries.remove(accountRecord);
+    }
+
+    Iterable<AccountRecord> values(SortDirection direction) {
+        return direction == SortDirection.DESC ? entries.descendingSet() : entries;
+    }
+
+    /**
+     * Returns only the records whose indexed field starts with the given prefix, located with a range lookup.
+     */
+    Iterable<AccountRecord> valuesWithPrefix(String prefix, SortDirection direction) {
+        byte[] lowerBound = prefix.getBytes(StandardCharsets.UTF_8);
+        byte[] upperBound = prefixUpperBound(lowerBound);
+        NavigableSet<AccountRecord> range = upperBound == null
+                ? entries.tailSet(AccountRecord.probe(field, lowerBound), true)
+                : entries.subSet(AccountRecord.probe(field, lowerBound), true, AccountRecord.probe(field, upperBound), false);
+        return direction == SortDirection.DESC ? range.descendingSet() : range;
+    }
+
+    /**
+     * Smallest byte string that is greater than every byte string starting with the prefix, or null if there is none.
+     */
+    private static byte[] prefixUpperBound(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] bound = Arrays.copyOf(prefix, i + 1);
+                bound[i]++;
+                return bound;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,116 @@
+package com.embark.crud.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each level covering 64 times the span of the one below.
+ * Scheduling and expiring an entry are O(1); an entry moves down a level at most three times before it fires,
+ * and deadlines beyond the top level's span are parked in its last slot and re-placed when it is reached.
+ *
+ * <p>Entries cannot be cancelled. Owners drop stale entries when they fire by checking them against their
+ * current deadline for the key.
+ */
+class TimingWheel<K> {
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = 1L << (LEVEL_BITS * LEVELS);
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<List<List<Entry<K>>>> levels = new ArrayList<>(LEVELS);
+    private final List<Entry<K>> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        for (int level = 0; level < LEVELS; level++) {
+            List<List<Entry<K>>> slots = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots.add(new ArrayList<>());
+            }
+            levels.add(slots);
+        }
+    }
+
+    synchronized void schedule(K key, long deadlineMillis) {
+        place(new Entry<>(key, deadlineMillis), overdue);
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and returns every entry whose deadline has been reached.
+     */
+    synchronized List<Entry<K>> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<Entry<K>> expired = new ArrayList<>(overdue);
+        overdue.clear();
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (LEVEL_BITS * level)) - 1)) == 0) {
+                    cascade(level, expired);
+                }
+            }
+            List<Entry<K>> slot = slotOf(0, currentTick);
+            expired.addAll(slot);
+            slot.clear();
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level, List<Entry<K>> expired) {
+        List<Entry<K>> slot = slotOf(level, currentTick);
+        List<Entry<K>> entries = new ArrayList<>(slot);
+        slot.clear();
+        for (Entry<K> entry : entries) {
+            place(entry, expired);
+        }
+    }
+
+    private void place(Entry<K> entry, List<Entry<K>> expired) {
+        // Deadlines before the start would overflow the subtraction when they are far enough in the past
+        long entryTick = entry.deadlineMillis <= startMillis
+                ? currentTick
+                : -Math.floorDiv(startMillis - entry.deadlineMillis, tickMillis);
+        long delta = entryTick - currentTick;
+        if (delta <= 0) {
+            expired.add(entry);
+            return;
+        }
+        if (delta >= MAX_DELTA) {
+            entryTick = currentTick + MAX_DELTA - 1;
+            delta = MAX_DELTA - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (LEVEL_BITS * (level + 1))) {
+            level++;
+        }
+        slotOf(level, entryTick).add(entry);
+    }
+
+    private List<Entry<K>> slotOf(int level, long tick) {
+        return levels.get(level).get((int) ((tick >>> (LEVEL_BITS * level)) & SLOT_MASK));
+    }
+
+    static final class Entry<K> {
+
+        final K key;
+        final long deadlineMillis;
+
+        private Entry(K key, long deadlineMillis) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.embark.crud.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.embark.crud.audit.AuditEvent;
+import com.embark.crud.audit.AuditOperation;
+import com.embark.crud.model.UserAccount;
+
+/**
+ * Writes staged by one transaction. Its accounts stay locked from staging until it is committed, so the staged
+ * state cannot go stale and the transactions committed in one group never touch the same account.
+ */
+final class Transaction {
+
+    /**
+     * Staged state of one account: the version that was live when the transaction first touched it and the
+     * value the transaction leaves behind.
+     */
+    static final class Write {
+
+        final AccountRecord current;
+        final boolean expired;
+        boolean live;
+        UserAccount account;
+
+        Write(AccountRecord current, boolean expired) {
+            this.current = current;
+            this.expired = expired;
+            this.live = current != null && !expired;
+        }
+
+        UserAccount value(long nowMillis) {
+            return account != null ? account : current.toUserAccount(nowMillis);
+        }
+
+        void put(UserAccount userAccount) {
+            account = userAccount;
+            live = true;
+        }
+
+        void remove() {
+            account = null;
+            live = false;
+        }
+
+        long countDelta() {
+            return (live ? 1 : 0) - (current != null ? 1 : 0);
+        }
+    }
+
+    final long startedAtMillis;
+    final boolean timed;
+    final Map<String, Write> writes = new LinkedHashMap<>();
+    final List<AuditEvent> events = new ArrayList<>();
+    boolean committed;
+    long commitWaitNanos;
+
+    Transaction(long startedAtMillis, boolean timed) {
+        this.startedAtMillis = startedAtMillis;
+        this.timed = timed;
+    }
+
+    boolean isEmpty() {
+        return writes.isEmpty();
+    }
+
+    int expiredCount() {
+        int count = 0;
+        for (Write write : writes.values()) {
+            if (write.expired) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Discards everything but the removal of accounts found expired, which holds whether or not the
+     * transaction goes through.
+     */
+    void keepOnlyExpiry() {
+        Iterator<Write> iterator = writes.values().iterator();
+        while (iterator.hasNext()) {
+            Write write = iterator.next();
+            if (write.expired) {
+                write.remove();
+            } else {
+                iterator.remove();
+            }
+        }
+        events.removeIf(event -> event.getOperation() != AuditOperation.EXPIRE);
+    }
+}
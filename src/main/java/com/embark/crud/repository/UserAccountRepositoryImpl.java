@@ -2,110 +2,722 @@ package com.embark.crud.repository;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
+import com.embark.crud.audit.AuditEvent;
+import com.embark.crud.audit.AuditOperation;
+import com.embark.crud.audit.AuditTrail;
 import com.embark.crud.exception.AccountAlreadyExistsException;
 import com.embark.crud.exception.AccountNotFoundException;
+import com.embark.crud.exception.SnapshotNotFoundException;
+import com.embark.crud.jfr.RepositoryOperationEvent;
+import com.embark.crud.model.AccountListQuery;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.AccountOperationType;
+import com.embark.crud.model.PagedResult;
+import com.embark.crud.model.SortDirection;
+import com.embark.crud.model.SortField;
 import com.embark.crud.model.UserAccount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * Multi-version store. Every commit gets the next version number, writers add new record versions instead of
+ * overwriting them, and readers see the state as of one committed version without taking any key lock. Paged
+ * list reads open a snapshot whose token lets later pages read the very same state while writers carry on;
+ * opening or following one briefly synchronizes on the {@link SnapshotRegistry}, while single account reads and
+ * {@link #readAccountList(int, int)} take no lock at all. Versions that no held snapshot can see any more are
+ * dropped by {@link #collectGarbage()}.
+ *
+ * <p>All writes are transactions. A transaction locks the stripes of its accounts in ascending order, so two
+ * transactions never wait on each other in a cycle, stages its writes against the latest state and then joins
+ * the commit queue. Whoever takes the commit lock next applies every queued transaction under one version,
+ * so concurrent transactions share a single publish and a single hand-off to the audit trail.
+ */
 @Service
 @Slf4j
 public class UserAccountRepositoryImpl implements CrudRepository<UserAccount> {
 
-    private final Map<String, UserAccount> cache;
-    private final ReentrantReadWriteLock reentrantReadWriteLock = new ReentrantReadWriteLock();
+    private static final long EXPIRY_TICK_MILLIS = 100;
+    private static final long SNAPSHOT_LEASE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long SNAPSHOT_FIRST_LEASE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final int LOCK_STRIPES = 1024;
+
+    private final ConcurrentNavigableMap<String, AccountRecord> cache = new ConcurrentSkipListMap<>();
+    private final SortedIndex usernameIndex = new SortedIndex(AccountRecord.Field.USERNAME);
+    private final SortedIndex emailIndex = new SortedIndex(AccountRecord.Field.EMAIL);
+    private final ReentrantLock[] keyLocks = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Queue<Transaction> pendingCommits = new ConcurrentLinkedQueue<>();
+    private final LongAdder commitGroups = new LongAdder();
+    private final LongAdder committedTransactions = new LongAdder();
+    private final SnapshotRegistry snapshotRegistry;
+    private final Queue<String> garbageIds = new ConcurrentLinkedQueue<>();
+    private final Map<String, Long> expiryDeadlines = new ConcurrentHashMap<>();
+    private final LongAdder expiredAccounts = new LongAdder();
+    private final TimingWheel<String> expiryWheel;
+    private final AuditTrail auditTrail;
+    private final Clock clock;
+    private volatile SnapshotRegistry.Snapshot committed = new SnapshotRegistry.Snapshot(0, 0);
+    private volatile long collectedVersion;
 
     public UserAccountRepositoryImpl() {
-        this.cache = initCache();
+        this(AuditTrail.NONE);
+    }
+
+    public UserAccountRepositoryImpl(AuditTrail auditTrail) {
+        this(auditTrail, SNAPSHOT_LEASE_MILLIS, SNAPSHOT_FIRST_LEASE_MILLIS);
+    }
+
+    @Autowired
+    public UserAccountRepositoryImpl(AuditTrail auditTrail,
+                                     @Value("${account.snapshot.lease-millis:60000}") long snapshotLeaseMillis,
+                                     @Value("${account.snapshot.first-lease-millis:5000}") long snapshotFirstLeaseMillis) {
+        this(auditTrail, Clock.systemUTC(), snapshotLeaseMillis, snapshotFirstLeaseMillis);
+    }
+
+    UserAccountRepositoryImpl(AuditTrail auditTrail, Clock clock) {
+        this(auditTrail, clock, SNAPSHOT_LEASE_MILLIS, SNAPSHOT_FIRST_LEASE_MILLIS);
+    }
+
+    private UserAccountRepositoryImpl(AuditTrail auditTrail, Clock clock, long snapshotLeaseMillis,
+                                      long snapshotFirstLeaseMillis) {
+        this.auditTrail = auditTrail;
+        this.clock = clock;
+        this.expiryWheel = new TimingWheel<>(EXPIRY_TICK_MILLIS, clock.millis());
+        this.snapshotRegistry = new SnapshotRegistry(snapshotLeaseMillis, snapshotFirstLeaseMillis, clock);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
+        initCache();
     }
 
     @Override
     public UserAccount createAccount(UserAccount userAccount) {
-        String id = userAccount.getId();
-        reentrantReadWriteLock.writeLock().lock();
+        return executeTransaction(List.of(AccountOperation.create(userAccount))).get(0);
+    }
+
+    @Override
+    public UserAccount readAccount(String id) {
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        event.begin();
+        String result = RepositoryOperationEvent.OK;
         try {
-            if (cache.containsKey(id)) {
-                String errorMessage = String.format("Account with id %s already exists", id);
-                throw new AccountAlreadyExistsException(errorMessage);
-            }
-            log.info("Creating user account with id {}", id);
-            cache.put(id, userAccount);
-            return userAccount;
+            return liveRecord(id).toUserAccount(clock.millis());
+        } catch (RuntimeException e) {
+            result = RepositoryOperationEvent.resultOf(e);
+            throw e;
         } finally {
-            reentrantReadWriteLock.writeLock().unlock();
+            event.complete("READ", id, 1, result);
         }
     }
 
+    /**
+     * Returns the version of the latest committed state of the account without decoding it.
+     */
     @Override
-    public UserAccount readAccount(String id) {
-        reentrantReadWriteLock.readLock().lock();
+    public long readAccountVersion(String id) {
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        event.begin();
+        String result = RepositoryOperationEvent.OK;
         try {
-            if (!cache.containsKey(id)) {
-                String errorMessage = String.format("Account with id %s not found", id);
-                throw new AccountNotFoundException(errorMessage);
-            }
-            log.info("Getting user account with id {}", id);
-            return cache.get(id);
+            return liveRecord(id).createdVersion;
+        } catch (RuntimeException e) {
+            result = RepositoryOperationEvent.resultOf(e);
+            throw e;
         } finally {
-            reentrantReadWriteLock.readLock().unlock();
+            event.complete("READ_VERSION", id, 1, result);
         }
     }
 
     @Override
     public UserAccount updateAccount(UserAccount userAccount) {
-        String id = userAccount.getId();
-        reentrantReadWriteLock.writeLock().lock();
+        return executeTransaction(List.of(AccountOperation.update(userAccount))).get(0);
+    }
+
+    @Override
+    public UserAccount deleteAccount(String id) {
+        return executeTransaction(List.of(AccountOperation.<UserAccount>delete(id))).get(0);
+    }
+
+    /**
+     * Applies the operations in order, each one seeing the writes of the ones before it, and commits all of them
+     * or none. Returns the created account for a create and the previous account for an update or a delete.
+     * Accounts whose time to live has run out are removed even when the transaction fails.
+     */
+    @Override
+    public List<UserAccount> executeTransaction(List<AccountOperation<UserAccount>> operations) {
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        event.begin();
+        String result = RepositoryOperationEvent.OK;
+        Set<String> ids = new LinkedHashSet<>();
+        operations.forEach(operation -> ids.add(idOf(operation)));
         try {
-            if (!cache.containsKey(id)) {
-                String errorMessage = String.format("Account with id %s not found", id);
-                throw new AccountNotFoundException(errorMessage);
-            }
-            log.info("Updating user account with id {}", id);
-            return cache.replace(id, userAccount);
+            return inTransaction(event, ids, transaction -> {
+                List<UserAccount> results = new ArrayList<>(operations.size());
+                for (AccountOperation<UserAccount> operation : operations) {
+                    results.add(apply(transaction, operation));
+                }
+                return results;
+            });
+        } catch (RuntimeException e) {
+            result = RepositoryOperationEvent.resultOf(e);
+            throw e;
         } finally {
-            reentrantReadWriteLock.writeLock().unlock();
+            boolean single = operations.size() == 1;
+            event.complete(single ? operations.get(0).getType().name() : "TRANSACTION",
+                           single ? idOf(operations.get(0)) : null, operations.size(), result);
         }
     }
 
+    /**
+     * Reads the page from the latest committed state without opening a snapshot, as the caller has no token to
+     * follow. If the collector dropped part of the history while this walked it, the read is repeated against
+     * the newer state.
+     */
     @Override
-    public UserAccount deleteAccount(String id) {
-        reentrantReadWriteLock.writeLock().lock();
+    public List<UserAccount> readAccountList(int page, int size) {
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        event.begin();
+        AccountListQuery query = AccountListQuery.builder().build();
+        while (true) {
+            SnapshotRegistry.Snapshot latest = committed;
+            List<UserAccount> content = readPage(orderedRecords(query, latest.version), latest.count, page, size)
+                    .getContent();
+            if (collectedVersion <= latest.version) {
+                event.complete("READ_PAGE", null, 1, RepositoryOperationEvent.OK);
+                return content;
+            }
+        }
+    }
+
+    /**
+     * Reads the page from the snapshot named in the query, or from a new snapshot of the latest committed state
+     * whose token is returned with the page.
+     */
+    @Override
+    public PagedResult<UserAccount> readAccountPage(int page, int size, AccountListQuery query) {
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        event.begin();
+        String eventResult = RepositoryOperationEvent.OK;
         try {
-            if (!cache.containsKey(id)) {
-                String errorMessage = String.format("Account with id %s not found", id);
-                throw new AccountNotFoundException(errorMessage);
+            SnapshotRegistry.Snapshot snapshot = openSnapshot(query.getSnapshot());
+            Iterable<AccountRecord> ordered = orderedRecords(query, snapshot.version);
+            PagedResult<UserAccount> result = query.hasFilters()
+                    ? readFilteredPage(ordered, filterOf(query), page, size)
+                    : readPage(ordered, snapshot.count, page, size);
+            return result.toBuilder()
+                    .snapshot(snapshot.token())
+                    .build();
+        } catch (RuntimeException e) {
+            eventResult = RepositoryOperationEvent.resultOf(e);
+            throw e;
+        } finally {
+            event.complete("READ_PAGE", null, 1, eventResult);
+        }
+    }
+
+    /**
+     * Removes the accounts whose time to live has run out. Only the wheel slots that came due are visited,
+     * and entries made stale by a later update or delete fail the deadline check and are skipped.
+     */
+    @Scheduled(fixedDelayString = "${account.expiry.interval-millis:1000}")
+    public void expireAccounts() {
+        List<TimingWheel.Entry<String>> dueEntries = expiryWheel.advance(clock.millis());
+        if (dueEntries.isEmpty()) {
+            return;
+        }
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        event.begin();
+        Set<String> dueIds = new LinkedHashSet<>();
+        dueEntries.forEach(entry -> dueIds.add(entry.key));
+        int expired = inTransaction(event, dueIds, transaction -> {
+            dueIds.forEach(id -> stage(transaction, id));
+            // Stale entries staged accounts that are still live; without them a run that expired nothing commits nothing
+            transaction.keepOnlyExpiry();
+            return transaction.expiredCount();
+        });
+        event.complete("EXPIRE", null, expired, RepositoryOperationEvent.OK);
+        log.debug("Expired {} user accounts", expired);
+    }
+
+    /**
+     * Drops the record versions that neither the latest state nor any held snapshot can see. Only accounts
+     * written since they were last visited are looked at, and those still holding versions a snapshot needs
+     * are visited again on the next run.
+     */
+    @Scheduled(fixedDelayString = "${account.snapshot.gc-interval-millis:1000}")
+    public void collectGarbage() {
+        long oldestVersion = snapshotRegistry.oldestVersion(committed.version);
+        collectedVersion = Math.max(collectedVersion, oldestVersion);
+        int collected = 0;
+        for (int pending = garbageIds.size(); pending > 0; pending--) {
+            String id = garbageIds.poll();
+            if (id == null) {
+                break;
             }
-            log.info("Deleting user account with id {}", id);
-            return cache.remove(id);
+            ReentrantLock keyLock = keyLocks[stripeOf(id)];
+            keyLock.lock();
+            try {
+                collected += prune(id, oldestVersion);
+            } finally {
+                keyLock.unlock();
+            }
+        }
+        log.debug("Collected {} record versions older than version {}", collected, oldestVersion);
+    }
+
+    public long getAccountCount() {
+        return committed.count;
+    }
+
+    public long getExpiredAccounts() {
+        return expiredAccounts.sum();
+    }
+
+    public int getOpenSnapshots() {
+        return snapshotRegistry.size();
+    }
+
+    public long getCommitGroups() {
+        return commitGroups.sum();
+    }
+
+    public long getCommittedTransactions() {
+        return committedTransactions.sum();
+    }
+
+    private static String idOf(AccountOperation<UserAccount> operation) {
+        return operation.getType() == AccountOperationType.DELETE ? operation.getId() : operation.getAccount().getId();
+    }
+
+    private UserAccount apply(Transaction transaction, AccountOperation<UserAccount> operation) {
+        String id = idOf(operation);
+        Transaction.Write write = stage(transaction, id);
+        switch (operation.getType()) {
+            case CREATE:
+                if (write.live) {
+                    String errorMessage = String.format("Account with id %s already exists", id);
+                    throw new AccountAlreadyExistsException(errorMessage);
+                }
+                write.put(operation.getAccount());
+                transaction.events.add(new AuditEvent(AuditOperation.CREATE, id));
+                return operation.getAccount();
+            case UPDATE:
+                UserAccount previousAccount = liveValue(transaction, write, id);
+                write.put(operation.getAccount());
+                transaction.events.add(new AuditEvent(AuditOperation.UPDATE, id));
+                return previousAccount;
+            case DELETE:
+                UserAccount deletedAccount = liveValue(transaction, write, id);
+                write.remove();
+                transaction.events.add(new AuditEvent(AuditOperation.DELETE, id));
+                return deletedAccount;
+            default:
+                throw new IllegalArgumentException("Unknown operation type " + operation.getType());
+        }
+    }
+
+    private static UserAccount liveValue(Transaction transaction, Transaction.Write write, String id) {
+        if (!write.live) {
+            String errorMessage = String.format("Account with id %s not found", id);
+            throw new AccountNotFoundException(errorMessage);
+        }
+        return write.value(transaction.startedAtMillis);
+    }
+
+    /**
+     * Must be called with the key lock of the account held. The first time a transaction touches an account it
+     * records the live version, and an account whose time to live has run out is staged for removal.
+     */
+    private Transaction.Write stage(Transaction transaction, String id) {
+        return transaction.writes.computeIfAbsent(id, key -> {
+            AccountRecord current = currentRecord(key);
+            boolean expired = current != null && isExpired(key, transaction.startedAtMillis);
+            if (expired) {
+                transaction.events.add(new AuditEvent(AuditOperation.EXPIRE, key));
+            }
+            return new Transaction.Write(current, expired);
+        });
+    }
+
+    /**
+     * Runs the work with the key locks of all given accounts held and commits what it staged. If the work fails,
+     * only the removal of expired accounts is committed before the failure is passed on. The audit events of the
+     * commit group are handed to the audit trail after the key locks are released, so a full audit queue never
+     * holds them. Lock times are only measured when a recording has the event enabled.
+     */
+    private <R> R inTransaction(RepositoryOperationEvent event, Collection<String> ids, Function<Transaction, R> work) {
+        int[] stripes = ids.stream()
+                .mapToInt(UserAccountRepositoryImpl::stripeOf)
+                .sorted()
+                .distinct()
+                .toArray();
+        boolean timed = event.isEnabled();
+        long lockRequested = timed ? System.nanoTime() : 0;
+        for (int stripe : stripes) {
+            keyLocks[stripe].lock();
+        }
+        long lockAcquired = timed ? System.nanoTime() : 0;
+        Transaction transaction = new Transaction(clock.millis(), timed);
+        List<AuditEvent> groupEvents = List.of();
+        try {
+            R result;
+            try {
+                result = work.apply(transaction);
+            } catch (RuntimeException e) {
+                transaction.keepOnlyExpiry();
+                groupEvents = commit(transaction);
+                throw e;
+            }
+            groupEvents = commit(transaction);
+            return result;
         } finally {
-            reentrantReadWriteLock.writeLock().unlock();
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                keyLocks[stripes[i]].unlock();
+            }
+            long lockReleased = timed ? System.nanoTime() : 0;
+            if (!groupEvents.isEmpty()) {
+                auditTrail.recordAll(groupEvents);
+            }
+            if (timed) {
+                event.lockTimes(lockAcquired - lockRequested + transaction.commitWaitNanos, lockReleased - lockAcquired);
+            }
         }
     }
 
-    @Override
-    public List<UserAccount> readAccountList(int page, int size) {
-        log.info("Getting user account list for page {} with size {}", page, size);
-        reentrantReadWriteLock.readLock().lock();
+    /**
+     * Must be called with the key locks of the transaction held. Queues the transaction and waits for the commit
+     * lock; if an earlier holder has not committed it along with its own group yet, commits every queued
+     * transaction under one version. Returns the audit events of the group this call committed, which the
+     * caller records once it has released its key locks, or an empty list if another caller committed it.
+     */
+    private List<AuditEvent> commit(Transaction transaction) {
+        if (transaction.isEmpty()) {
+            return List.of();
+        }
+        pendingCommits.add(transaction);
+        List<AuditEvent> groupEvents = new ArrayList<>();
+        long commitRequested = transaction.timed ? System.nanoTime() : 0;
+        commitLock.lock();
+        if (transaction.timed) {
+            transaction.commitWaitNanos = System.nanoTime() - commitRequested;
+        }
         try {
-            List<UserAccount> allValues = new ArrayList<>(cache.values());
-            while (allValues.size() < (page - 1) * size) {
-                --page;
+            if (transaction.committed) {
+                return List.of();
             }
-            if (allValues.size() < page * size) {
-                return allValues.subList((page - 1) * size, allValues.size());
+            long version = committed.version + 1;
+            long countDelta = 0;
+            int groupSize = 0;
+            Transaction queued;
+            while ((queued = pendingCommits.poll()) != null) {
+                countDelta += applyWrites(queued, version);
+                groupEvents.addAll(queued.events);
+                queued.committed = true;
+                groupSize++;
             }
-            return allValues.subList((page - 1) * size, page * size);
+            committed = new SnapshotRegistry.Snapshot(version, committed.count + countDelta);
+            commitGroups.increment();
+            committedTransactions.add(groupSize);
         } finally {
-            reentrantReadWriteLock.readLock().unlock();
+            commitLock.unlock();
+        }
+        return groupEvents;
+    }
+
+    /**
+     * Must be called with the commit lock held. Returns the change in the number of accounts.
+     */
+    private long applyWrites(Transaction transaction, long version) {
+        long countDelta = 0;
+        for (Map.Entry<String, Transaction.Write> entry : transaction.writes.entrySet()) {
+            String id = entry.getKey();
+            Transaction.Write write = entry.getValue();
+            if (write.account != null) {
+                long deadline = deadlineOf(write.account);
+                store(write.account, version, deadline);
+                scheduleExpiry(id, deadline);
+            } else if (!write.live && write.current != null) {
+                retire(write.current, version);
+                expiryDeadlines.remove(id);
+            }
+            countDelta += write.countDelta();
+        }
+        expiredAccounts.add(transaction.expiredCount());
+        return countDelta;
+    }
+
+    private static int stripeOf(String id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private SnapshotRegistry.Snapshot openSnapshot(String token) {
+        if (token == null) {
+            return snapshotRegistry.open(() -> committed);
+        }
+        SnapshotRegistry.Snapshot snapshot = snapshotRegistry.reopen(token);
+        if (snapshot == null) {
+            String errorMessage = String.format("Snapshot %s not found or expired", token);
+            throw new SnapshotNotFoundException(errorMessage);
+        }
+        return snapshot;
+    }
+
+    private AccountRecord liveRecord(String id) {
+        AccountRecord accountRecord = isExpired(id, clock.millis()) ? null : committedRecord(id);
+        if (accountRecord == null) {
+            String errorMessage = String.format("Account with id %s not found", id);
+            throw new AccountNotFoundException(errorMessage);
+        }
+        return accountRecord;
+    }
+
+    /**
+     * Reads the latest committed version of an account without a snapshot. If the collector dropped part of the
+     * history while this walked it, a newer state has been committed since and the read is repeated against it.
+     */
+    private AccountRecord committedRecord(String id) {
+        while (true) {
+            long version = committed.version;
+            AccountRecord head = cache.get(id);
+            AccountRecord accountRecord = head == null ? null : head.visibleAt(version);
+            if (accountRecord != null || collectedVersion <= version) {
+                return accountRecord;
+            }
+        }
+    }
+
+    /**
+     * Must be called with the key lock of the account held.
+     */
+    private AccountRecord currentRecord(String id) {
+        AccountRecord head = cache.get(id);
+        return head != null && head.isCurrent() ? head : null;
+    }
+
+    private long deadlineOf(UserAccount userAccount) {
+        Long ttlSeconds = userAccount.getTtlSeconds();
+        if (ttlSeconds == null || ttlSeconds <= 0) {
+            return AccountRecord.NO_EXPIRY;
+        }
+        // toMillis saturates at Long.MAX_VALUE, and so must the deadline, or a huge ttl wraps into the past
+        long now = clock.millis();
+        long ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        return ttlMillis > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttlMillis;
+    }
+
+    private void scheduleExpiry(String id, long deadline) {
+        if (deadline == AccountRecord.NO_EXPIRY) {
+            expiryDeadlines.remove(id);
+            return;
         }
+        expiryDeadlines.put(id, deadline);
+        expiryWheel.schedule(id, deadline);
+    }
+
+    private boolean isExpired(String id, long now) {
+        Long deadline = expiryDeadlines.get(id);
+        return deadline != null && deadline <= now;
     }
 
-    private Map<String, UserAccount> initCache() {
-        Map<String, UserAccount> cache = new ConcurrentSkipListMap<>();
+    /**
+     * Adds a new version of the account on top of its history, retiring the version it replaces.
+     */
+    private void store(UserAccount userAccount, long version, long deadline) {
+        AccountRecord head = cache.get(userAccount.getId());
+        if (head != null && head.isCurrent()) {
+            retire(head, version);
+        }
+        AccountRecord accountRecord = AccountRecord.of(userAccount, version, deadline, head);
+        cache.put(accountRecord.id, accountRecord);
+        usernameIndex.add(accountRecord);
+        emailIndex.add(accountRecord);
+    }
+
+    private void retire(AccountRecord accountRecord, long version) {
+        accountRecord.supersede(version);
+        garbageIds.add(accountRecord.id);
+    }
+
+    /**
+     * Must be called with the key lock of the account held. Cuts the history of an account below the newest
+     * version that the oldest held snapshot can still see, and returns the number of versions dropped.
+     */
+    private int prune(String id, long oldestVersion) {
+        AccountRecord head = cache.get(id);
+        AccountRecord newer = null;
+        int collected = 0;
+        for (AccountRecord accountRecord = head; accountRecord != null; accountRecord = accountRecord.previous()) {
+            if (accountRecord.supersededVersion() <= oldestVersion) {
+                for (AccountRecord garbage = accountRecord; garbage != null; garbage = garbage.previous()) {
+                    unindex(garbage);
+                    collected++;
+                }
+                if (newer == null) {
+                    cache.remove(id, head);
+                } else {
+                    newer.truncateHistory();
+                }
+                break;
+            }
+            newer = accountRecord;
+        }
+        AccountRecord remaining = cache.get(id);
+        if (remaining != null && (!remaining.isCurrent() || remaining.previous() != null)) {
+            garbageIds.add(id);
+        }
+        return collected;
+    }
+
+    private void unindex(AccountRecord accountRecord) {
+        usernameIndex.remove(accountRecord);
+        emailIndex.remove(accountRecord);
+    }
+
+    /**
+     * Indexes hold every version that is not collected yet, so the ordering keeps only the versions visible at
+     * the snapshot. The id ordering walks each account history down to the version visible at the snapshot.
+     */
+    private Iterable<AccountRecord> orderedRecords(AccountListQuery query, long version) {
+        SortDirection direction = query.getSortDirection();
+        Iterable<AccountRecord> versions;
+        if (query.getSortField() == SortField.USERNAME) {
+            versions = query.getUsernamePrefix() == null
+                    ? usernameIndex.values(direction)
+                    : usernameIndex.valuesWithPrefix(query.getUsernamePrefix(), direction);
+        } else if (query.getSortField() == SortField.EMAIL) {
+            versions = emailIndex.values(direction);
+        } else {
+            Iterable<AccountRecord> heads = direction == SortDirection.DESC ? cache.descendingMap().values() : cache.values();
+            return () -> StreamSupport.stream(heads.spliterator(), false)
+                    .map(head -> head.visibleAt(version))
+                    .filter(Objects::nonNull)
+                    .iterator();
+        }
+        return () -> StreamSupport.stream(versions.spliterator(), false)
+                .filter(accountRecord -> accountRecord.isVisibleAt(version))
+                .iterator();
+    }
+
+    private Predicate<AccountRecord> filterOf(AccountListQuery query) {
+        Predicate<AccountRecord> filter = accountRecord -> true;
+        if (query.getEmailDomain() != null) {
+            byte[] domainSuffix = ("@" + query.getEmailDomain()).getBytes(StandardCharsets.UTF_8);
+            filter = filter.and(accountRecord -> accountRecord.fieldEndsWithIgnoreAsciiCase(AccountRecord.Field.EMAIL,
+                                                                                            domainSuffix));
+        }
+        if (query.getUsernamePrefix() != null) {
+            byte[] usernamePrefix = query.getUsernamePrefix().getBytes(StandardCharsets.UTF_8);
+            filter = filter.and(accountRecord -> accountRecord.fieldStartsWith(AccountRecord.Field.USERNAME,
+                                                                               usernamePrefix));
+        }
+        return filter;
+    }
+
+    /**
+     * Without filters the total is known up front from the snapshot, so a page beyond the last one
+     * is clamped to the last page before walking the ordering.
+     */
+    private PagedResult<UserAccount> readPage(Iterable<AccountRecord> ordered, long total, int page, int size) {
+        long now = clock.millis();
+        int servedPage = clampPage(page, size, total);
+        List<UserAccount> pageContent = new ArrayList<>();
+        long offset = (long) (servedPage - 1) * size;
+        long skipped = 0;
+        for (AccountRecord accountRecord : ordered) {
+            if (pageContent.size() >= size) {
+                break;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                pageContent.add(accountRecord.toUserAccount(now));
+            }
+        }
+        return pageOf(pageContent, servedPage, size, total);
+    }
+
+    /**
+     * With filters the total is only known after walking every candidate, so the walk counts all matches
+     * and collects the requested page on the way. A page beyond the last one needs a second pass.
+     */
+    private PagedResult<UserAccount> readFilteredPage(Iterable<AccountRecord> ordered, Predicate<AccountRecord> filter,
+                                                      int page, int size) {
+        long now = clock.millis();
+        List<UserAccount> pageContent = new ArrayList<>();
+        long offset = (long) (page - 1) * size;
+        long matched = 0;
+        for (AccountRecord accountRecord : ordered) {
+            if (!filter.test(accountRecord)) {
+                continue;
+            }
+            if (matched >= offset && pageContent.size() < size) {
+                pageContent.add(accountRecord.toUserAccount(now));
+            }
+            matched++;
+        }
+        int servedPage = clampPage(page, size, matched);
+        if (servedPage == page) {
+            return pageOf(pageContent, page, size, matched);
+        }
+        long servedOffset = (long) (servedPage - 1) * size;
+        long skipped = 0;
+        for (AccountRecord accountRecord : ordered) {
+            if (pageContent.size() >= size) {
+                break;
+            }
+            if (!filter.test(accountRecord)) {
+                continue;
+            }
+            if (skipped < servedOffset) {
+                skipped++;
+            } else {
+                pageContent.add(accountRecord.toUserAccount(now));
+            }
+        }
+        return pageOf(pageContent, servedPage, size, matched);
+    }
+
+    private static int clampPage(int page, int size, long total) {
+        if (size == 0 || (long) (page - 1) * size <= total) {
+            return page;
+        }
+        return (int) (total / size) + 1;
+    }
+
+    private static PagedResult<UserAccount> pageOf(List<UserAccount> content, int page, int size, long total) {
+        return PagedResult.<UserAccount>builder()
+                .content(content)
+                .page(page)
+                .size(size)
+                .totalElements(total)
+                .totalPages(PagedResult.totalPages(total, size))
+                .build();
+    }
+
+    private void initCache() {
         UserAccount firstAccount = UserAccount.builder()
                 .id("1")
                 .email("first@mail.com")
@@ -136,11 +748,10 @@ public class UserAccountRepositoryImpl implements CrudRepository<UserAccount> {
                 .username("fifth")
                 .password("fifthPassword".toCharArray())
                 .build();
-        cache.put("1", firstAccount);
-        cache.put("2", secondAccount);
-        cache.put("3", thirdAccount);
-        cache.put("4", fourthAccount);
-        cache.put("5", fifthAccount);
-        return cache;
+        Transaction transaction = new Transaction(clock.millis(), false);
+        for (UserAccount userAccount : List.of(firstAccount, secondAccount, thirdAccount, fourthAccount, fifthAccount)) {
+            stage(transaction, userAccount.getId()).put(userAccount);
+        }
+        commit(transaction);
     }
 }
@@ -3,6 +3,9 @@ package com.embark.crud.service;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
+import com.embark.crud.model.AccountListQuery;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.PagedResult;
 import com.embark.crud.repository.CrudRepository;
 import org.springframework.stereotype.Service;
 
@@ -22,6 +25,11 @@ public class CrudServiceImpl<T> implements CrudService<T> {
         return crudRepository.readAccount(id);
     }
 
+    @Override
+    public long readAccountVersion(String id) {
+        return crudRepository.readAccountVersion(id);
+    }
+
     @Override
     public T updateAccount(T t) {
         return crudRepository.updateAccount(t);
@@ -32,8 +40,18 @@ public class CrudServiceImpl<T> implements CrudService<T> {
         return crudRepository.deleteAccount(id);
     }
 
+    @Override
+    public List<T> executeTransaction(List<AccountOperation<T>> operations) {
+        return crudRepository.executeTransaction(operations);
+    }
+
     @Override
     public List<T> readAccountList(int page, int size) {
         return crudRepository.readAccountList(page, size);
     }
+
+    @Override
+    public PagedResult<T> readAccountPage(int page, int size, AccountListQuery query) {
+        return crudRepository.readAccountPage(page, size, query);
+    }
 }
@@ -0,0 +1,151 @@
+package com.embark.crud.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncAuditTrailTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AuditProperties auditProperties;
+
+    @BeforeEach
+    void setUp() {
+        auditProperties = new AuditProperties();
+        auditProperties.setFile(tempDir.resolve("audit.log").toString());
+        auditProperties.setFlushIntervalMillis(10);
+    }
+
+    @Test
+    void record_writesEventsAsJsonLines() throws Exception {
+        AsyncAuditTrail auditTrail = new AsyncAuditTrail(auditProperties);
+        auditTrail.start();
+
+        auditTrail.record(new AuditEvent(AuditOperation.CREATE, "1"));
+        auditTrail.record(new AuditEvent(AuditOperation.UPDATE, "quo\"ted"));
+        auditTrail.record(new AuditEvent(AuditOperation.DELETE, "1"));
+        auditTrail.close();
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("audit.log"), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).endsWith("\"operation\":\"CREATE\",\"accountId\":\"1\"}"));
+        assertTrue(lines.get(1).endsWith("\"operation\":\"UPDATE\",\"accountId\":\"quo\\\"ted\"}"));
+        assertTrue(lines.get(2).endsWith("\"operation\":\"DELETE\",\"accountId\":\"1\"}"));
+    }
+
+    @Test
+    void record_afterClose_dropsEventsAndCountsThem() throws Exception {
+        AsyncAuditTrail auditTrail = new AsyncAuditTrail(auditProperties);
+        auditTrail.start();
+        auditTrail.record(new AuditEvent(AuditOperation.CREATE, "1"));
+        auditTrail.close();
+
+        auditTrail.record(new AuditEvent(AuditOperation.UPDATE, "1"));
+        auditTrail.recordAll(List.of(new AuditEvent(AuditOperation.DELETE, "1"), new AuditEvent(AuditOperation.EXPIRE, "2")));
+
+        assertEquals(0, auditTrail.getQueueSize());
+        assertEquals(3, auditTrail.getDroppedEvents());
+        auditTrail.close();
+        assertEquals(1, Files.readAllLines(tempDir.resolve("audit.log"), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void record_whenQueueIsFullAndPolicyIsDrop_dropsEvents() throws Exception {
+        auditProperties.setQueueCapacity(2);
+        auditProperties.setOverflowPolicy(OverflowPolicy.DROP);
+        AsyncAuditTrail auditTrail = new AsyncAuditTrail(auditProperties);
+
+        for (int i = 0; i < 5; i++) {
+            auditTrail.record(new AuditEvent(AuditOperation.CREATE, String.valueOf(i)));
+        }
+
+        assertEquals(2, auditTrail.getQueueSize());
+        assertEquals(3, auditTrail.getDroppedEvents());
+        auditTrail.close();
+        assertEquals(2, Files.readAllLines(tempDir.resolve("audit.log"), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void recordAll_whenQueueHasRoomForSomeEventsAndPolicyIsDrop_queuesThoseAndDropsTheRest() throws Exception {
+        auditProperties.setQueueCapacity(3);
+        auditProperties.setOverflowPolicy(OverflowPolicy.DROP);
+        AsyncAuditTrail auditTrail = new AsyncAuditTrail(auditProperties);
+
+        auditTrail.record(new AuditEvent(AuditOperation.CREATE, "0"));
+        auditTrail.recordAll(List.of(new AuditEvent(AuditOperation.UPDATE, "1"),
+                                     new AuditEvent(AuditOperation.UPDATE, "2"),
+                                     new AuditEvent(AuditOperation.UPDATE, "3")));
+
+        assertEquals(3, auditTrail.getQueueSize());
+        assertEquals(1, auditTrail.getDroppedEvents());
+        auditTrail.close();
+        List<String> lines = Files.readAllLines(tempDir.resolve("audit.log"), StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(2).endsWith("\"accountId\":\"2\"}"));
+    }
+
+    @Test
+    void record_whenQueueIsFullAndPolicyIsBlock_waitsForWriter() throws Exception {
+        auditProperties.setQueueCapacity(1);
+        auditProperties.setOverflowPolicy(OverflowPolicy.BLOCK);
+        AsyncAuditTrail auditTrail = new AsyncAuditTrail(auditProperties);
+        auditTrail.start();
+
+        for (int i = 0; i < 100; i++) {
+            auditTrail.record(new AuditEvent(AuditOperation.CREATE, String.valueOf(i)));
+        }
+        auditTrail.close();
+
+        assertEquals(0, auditTrail.getDroppedEvents());
+        assertEquals(100, Files.readAllLines(tempDir.resolve("audit.log"), StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    void record_whenFileExceedsMaxSize_rollsFile() throws Exception {
+        auditProperties.setMaxFileSize(DataSize.ofBytes(200));
+        auditProperties.setMaxHistory(2);
+        auditProperties.setBatchSize(1);
+        AsyncAuditTrail auditTrail = new AsyncAuditTrail(auditProperties);
+        auditTrail.start();
+
+        for (int i = 0; i < 20; i++) {
+            auditTrail.record(new AuditEvent(AuditOperation.UPDATE, String.valueOf(i)));
+        }
+        auditTrail.close();
+
+        assertTrue(Files.exists(tempDir.resolve("audit.log.1")));
+        assertTrue(Files.exists(tempDir.resolve("audit.log.2")));
+        assertTrue(Files.notExists(tempDir.resolve("audit.log.3")));
+    }
+
+    @Test
+    void record_whenIdsAreNotAscii_rollsFileOnceItsBytesExceedMaxSize() throws Exception {
+        auditProperties.setMaxFileSize(DataSize.ofBytes(500));
+        auditProperties.setMaxHistory(1);
+        auditProperties.setBatchSize(1);
+        AsyncAuditTrail auditTrail = new AsyncAuditTrail(auditProperties);
+        auditTrail.start();
+
+        String id = "\u00e9".repeat(100);
+        for (int i = 0; i < 4; i++) {
+            auditTrail.record(new AuditEvent(AuditOperation.UPDATE, id));
+        }
+        auditTrail.close();
+
+        Path rolled = tempDir.resolve("audit.log.1");
+        int lineBytes = Files.readAllLines(rolled, StandardCharsets.UTF_8).get(0).getBytes(StandardCharsets.UTF_8).length
+                + System.lineSeparator().length();
+        assertTrue(Files.size(rolled) >= 500);
+        assertTrue(Files.size(rolled) < 500 + lineBytes);
+    }
+}
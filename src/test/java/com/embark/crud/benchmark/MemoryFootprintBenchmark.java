@@ -0,0 +1,104 @@
+package com.embark.crud.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntFunction;
+import com.embark.crud.model.UserAccount;
+import com.embark.crud.repository.UserAccountRepositoryImpl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the retained heap per account of the original bean-based store (a skip-list of {@link UserAccount}
+ * beans plus username and email indexes keyed by field and id) with {@link UserAccountRepositoryImpl}.
+ *
+ * <p>Run with {@code mvn test -P benchmark -Dbenchmark.accounts=1000000,10000000 -Dbenchmark.heap=16g}.
+ */
+@Tag("benchmark")
+class MemoryFootprintBenchmark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void bytesPerAccount() {
+        System.out.printf("%12s %22s %22s%n", "accounts", "bean store B/account", "repository B/account");
+        for (int accounts : accountCounts()) {
+            long beanStoreBytes = retainedBytes(accounts, MemoryFootprintBenchmark::populateBeanStore);
+            long repositoryBytes = retainedBytes(accounts, MemoryFootprintBenchmark::populateRepository);
+            System.out.printf("%12d %22.1f %22.1f%n", accounts,
+                              (double) beanStoreBytes / accounts, (double) repositoryBytes / accounts);
+        }
+    }
+
+    private static long retainedBytes(int accounts, IntFunction<Object> populate) {
+        long before = usedHeapAfterGc();
+        Object store = populate.apply(accounts);
+        long after = usedHeapAfterGc();
+        Reference.reachabilityFence(store);
+        return after - before;
+    }
+
+    private static Object populateBeanStore(int accounts) {
+        Map<String, UserAccount> cache = new ConcurrentSkipListMap<>();
+        Map<IndexKey, UserAccount> usernameIndex = new ConcurrentSkipListMap<>();
+        Map<IndexKey, UserAccount> emailIndex = new ConcurrentSkipListMap<>();
+        for (int i = 0; i < accounts; i++) {
+            UserAccount userAccount = account(i);
+            cache.put(userAccount.getId(), userAccount);
+            usernameIndex.put(new IndexKey(userAccount.getUsername(), userAccount.getId()), userAccount);
+            emailIndex.put(new IndexKey(userAccount.getEmail(), userAccount.getId()), userAccount);
+        }
+        return new Object[]{cache, usernameIndex, emailIndex};
+    }
+
+    private static Object populateRepository(int accounts) {
+        UserAccountRepositoryImpl repository = new UserAccountRepositoryImpl();
+        for (int i = 0; i < accounts; i++) {
+            repository.createAccount(account(i));
+        }
+        return repository;
+    }
+
+    private static UserAccount account(int i) {
+        return UserAccount.builder()
+                .id(String.valueOf(1_000_000_000L + i))
+                .email("user" + i + "@mail.com")
+                .username("user" + i)
+                .password(("password" + i).toCharArray())
+                .build();
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static int[] accountCounts() {
+        return Arrays.stream(System.getProperty("benchmark.accounts", "1000000").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim()))
+                .toArray();
+    }
+
+    private static final class IndexKey implements Comparable<IndexKey> {
+
+        private final String value;
+        private final String id;
+
+        private IndexKey(String value, String id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(IndexKey other) {
+            int result = value.compareTo(other.value);
+            return result != 0 ? result : id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.embark.crud.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import com.embark.crud.cache.BoundedAccountResponseCache;
+import com.embark.crud.model.UserAccount;
+import com.embark.crud.repository.UserAccountRepositoryImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures the CPU time per {@code GET /users/{id}} body spent in the repository and in Jackson, with every read
+ * encoding the account and with reads answered from {@link BoundedAccountResponseCache}. Reads come from a small
+ * hot set of a larger store, except for a cold tail share drawn uniformly from every account, which is repeated
+ * for each share in {@code benchmark.cold-shares}.
+ *
+ * <p>Run with {@code mvn test -P benchmark -Dbenchmark.reads=5000000 -Dbenchmark.cold-shares=0,0.1,0.3}.
+ */
+@Tag("benchmark")
+class ResponseSerializationBenchmark {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int ACCOUNTS = 100_000;
+    private static final int HOT_ACCOUNTS = 1_000;
+    private static final int CACHE_ENTRIES = 10_000;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void cpuNanosPerRead() throws Exception {
+        int reads = Integer.getInteger("benchmark.reads", 2_000_000);
+        UserAccountRepositoryImpl repository = new UserAccountRepositoryImpl();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            repository.createAccount(account(i));
+        }
+        String[] coldShares = System.getProperty("benchmark.cold-shares", "0,0.1,0.3").split(",");
+
+        System.out.printf("%10s %16s %16s %10s %10s%n", "cold share", "encoded ns/read", "cached ns/read", "saved", "hit ratio");
+        for (String share : coldShares) {
+            double coldShare = Double.parseDouble(share);
+            BoundedAccountResponseCache responseCache = new BoundedAccountResponseCache(CACHE_ENTRIES);
+            encodeEveryRead(repository, reads, coldShare);
+            readThroughCache(repository, responseCache, reads, coldShare);
+            long hitsBefore = responseCache.getHits();
+            long missesBefore = responseCache.getMisses();
+            double encodeNanos = (double) encodeEveryRead(repository, reads, coldShare) / reads;
+            double cachedNanos = (double) readThroughCache(repository, responseCache, reads, coldShare) / reads;
+            long hits = responseCache.getHits() - hitsBefore;
+            double hitRatio = (double) hits / (hits + responseCache.getMisses() - missesBefore);
+
+            System.out.printf("%10.2f %16.1f %16.1f %9.0f%% %10.4f%n", coldShare, encodeNanos, cachedNanos,
+                              100 * (encodeNanos - cachedNanos) / encodeNanos, hitRatio);
+        }
+    }
+
+    private long encodeEveryRead(UserAccountRepositoryImpl repository, int reads, double coldShare) throws Exception {
+        long bytes = 0;
+        long start = THREADS.getCurrentThreadCpuTime();
+        for (int i = 0; i < reads; i++) {
+            String id = nextId(coldShare);
+            bytes += objectMapper.writeValueAsBytes(repository.readAccount(id)).length;
+        }
+        long cpuNanos = THREADS.getCurrentThreadCpuTime() - start;
+        consume(bytes);
+        return cpuNanos;
+    }
+
+    private long readThroughCache(UserAccountRepositoryImpl repository, BoundedAccountResponseCache responseCache,
+                                  int reads, double coldShare) throws Exception {
+        long bytes = 0;
+        long start = THREADS.getCurrentThreadCpuTime();
+        for (int i = 0; i < reads; i++) {
+            String id = nextId(coldShare);
+            byte[] body = responseCache.get(id, repository.readAccountVersion(id));
+            if (body == null) {
+                UserAccount userAccount = repository.readAccount(id);
+                body = objectMapper.writeValueAsBytes(userAccount);
+                responseCache.put(id, userAccount.getVersion(), body);
+            }
+            bytes += body.length;
+        }
+        long cpuNanos = THREADS.getCurrentThreadCpuTime() - start;
+        consume(bytes);
+        return cpuNanos;
+    }
+
+    private static String nextId(double coldShare) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int account = random.nextDouble() < coldShare ? random.nextInt(ACCOUNTS) : random.nextInt(HOT_ACCOUNTS);
+        return String.valueOf(1_000_000_000L + account);
+    }
+
+    private static UserAccount account(int i) {
+        return UserAccount.builder()
+                .id(String.valueOf(1_000_000_000L + i))
+                .email("user" + i + "@mail.com")
+                .username("user" + i)
+                .password(("password" + i).toCharArray())
+                .build();
+    }
+
+    private static void consume(long bytes) {
+        if (bytes == 42) {
+            System.out.println(bytes);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.embark.crud.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedAccountResponseCacheTest {
+
+    @Test
+    void get_whenVersionMatches_returnsBodyAndCountsHit() {
+        BoundedAccountResponseCache responseCache = new BoundedAccountResponseCache(10);
+        responseCache.put("1", 3, new byte[]{1});
+
+        assertArrayEquals(new byte[]{1}, responseCache.get("1", 3));
+        assertNull(responseCache.get("1", 4));
+        assertNull(responseCache.get("2", 3));
+        assertEquals(1, responseCache.getHits());
+        assertEquals(2, responseCache.getMisses());
+        assertEquals(1.0 / 3, responseCache.getHitRatio());
+    }
+
+    @Test
+    void put_whenOlderVersionArrivesLate_keepsNewerBody() {
+        BoundedAccountResponseCache responseCache = new BoundedAccountResponseCache(10);
+        responseCache.put("1", 5, new byte[]{5});
+        responseCache.put("1", 4, new byte[]{4});
+
+        assertArrayEquals(new byte[]{5}, responseCache.get("1", 5));
+        assertNull(responseCache.get("1", 4));
+    }
+
+    @Test
+    void put_whenFull_makesRoomAndStaysBounded() {
+        BoundedAccountResponseCache responseCache = new BoundedAccountResponseCache(3);
+        for (int i = 0; i < 10; i++) {
+            responseCache.put(String.valueOf(i), 1, new byte[]{(byte) i});
+        }
+
+        assertEquals(3, responseCache.getSize());
+        assertArrayEquals(new byte[]{9}, responseCache.get("9", 1));
+    }
+
+    @Test
+    void put_whenColdBodiesStreamThrough_keepsBodiesThatAreRead() {
+        BoundedAccountResponseCache responseCache = new BoundedAccountResponseCache(4);
+        responseCache.put("hot", 1, new byte[]{1});
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new byte[]{1}, responseCache.get("hot", 1));
+            responseCache.put("cold" + i, 1, new byte[]{0});
+        }
+
+        assertEquals(4, responseCache.getSize());
+        assertEquals(100, responseCache.getHits());
+    }
+
+    @Test
+    void put_whenCalledConcurrently_neverExceedsMaxEntries() throws Exception {
+        BoundedAccountResponseCache responseCache = new BoundedAccountResponseCache(16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int offset = writer * 10_000;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        responseCache.put(String.valueOf(offset + i), 1, new byte[]{1});
+                        responseCache.get(String.valueOf(offset + i / 2), 1);
+                        assertTrue(responseCache.getSize() <= 16);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(16, responseCache.getSize());
+    }
+
+    @Test
+    void evict_removesBody() {
+        BoundedAccountResponseCache responseCache = new BoundedAccountResponseCache(10);
+        responseCache.put("1", 1, new byte[]{1});
+
+        responseCache.evict("1");
+
+        assertNull(responseCache.get("1", 1));
+        assertEquals(0, responseCache.getSize());
+    }
+}
@@ -1,22 +1,45 @@
 package com.embark.crud.controller;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Collectors;
+import com.embark.crud.cache.BoundedAccountResponseCache;
+import com.embark.crud.config.ResponseCacheConfig;
 import com.embark.crud.exception.AccountAlreadyExistsException;
 import com.embark.crud.exception.AccountNotFoundException;
+import com.embark.crud.exception.SnapshotNotFoundException;
+import com.embark.crud.jfr.SerializationEvent;
+import com.embark.crud.model.AccountListQuery;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.AccountOperationType;
+import com.embark.crud.model.PagedResult;
+import com.embark.crud.model.SortDirection;
+import com.embark.crud.model.SortField;
 import com.embark.crud.model.UserAccount;
 import com.embark.crud.service.CrudService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -25,9 +48,11 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserAccountController.class)
+@Import(ResponseCacheConfig.class)
 class UserAccountControllerTest {
 
     private static final String ID = "1";
+    private static final long REPOSITORY_DELAY_MILLIS = 100;
 
     @Autowired
     private MockMvc mvc;
@@ -35,11 +60,15 @@ class UserAccountControllerTest {
     @MockBean
     private CrudService<UserAccount> crudService;
 
+    @Autowired
+    private BoundedAccountResponseCache accountResponseCache;
+
     private UserAccount testedAccount;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     void setUp() {
+        accountResponseCache.evict(ID);
         testedAccount = UserAccount.builder()
                 .id(ID)
                 .email("first@mail.com")
@@ -58,7 +87,7 @@ class UserAccountControllerTest {
 
     @Test
     void createAccount_whenUserAccountIdIsNull_returnsBadRequestStatus() throws Exception {
-        testedAccount.setId(null);
+        testedAccount = testedAccount.withId(null);
 
         mvc.perform(post("/users")
                             .content(objectMapper.writeValueAsString(testedAccount))
@@ -93,6 +122,17 @@ class UserAccountControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void createAccount_whenTtlIsNotPositive_returnsBadRequestStatus() throws Exception {
+        testedAccount = testedAccount.withTtlSeconds(0L);
+
+        mvc.perform(post("/users")
+                            .content(objectMapper.writeValueAsString(testedAccount))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void readAccount_whenRequestIsCorrect_returnsOkStatus() throws Exception {
         Mockito.when(crudService.readAccount("1")).thenReturn(testedAccount);
@@ -108,13 +148,124 @@ class UserAccountControllerTest {
 
     @Test
     void readAccount_whenServiceThrowsAccountNotFoundException_returnsNotFoundStatus() throws Exception {
-        Mockito.when(crudService.readAccount("1")).thenThrow(AccountNotFoundException.class);
+        Mockito.when(crudService.readAccountVersion("1")).thenThrow(AccountNotFoundException.class);
 
         mvc.perform(get("/users/1")
                             .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void readAccount_whenVersionIsUnchanged_writesCachedBody() throws Exception {
+        testedAccount = testedAccount.withVersion(7L);
+        Mockito.when(crudService.readAccountVersion("1")).thenReturn(7L);
+        Mockito.when(crudService.readAccount("1")).thenReturn(testedAccount);
+        long hitsBefore = accountResponseCache.getHits();
+
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(get("/users/1")
+                                .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.username", is(testedAccount.getUsername())))
+                    .andExpect(jsonPath("$.version", is(7)));
+        }
+
+        Mockito.verify(crudService, Mockito.times(1)).readAccount("1");
+        assertEquals(hitsBefore + 2, accountResponseCache.getHits());
+    }
+
+    @Test
+    void readAccount_whenAccountExpires_encodesRemainingTtlEveryTime() throws Exception {
+        Mockito.when(crudService.readAccountVersion("1")).thenReturn(7L);
+        Mockito.when(crudService.readAccount("1"))
+                .thenReturn(testedAccount.withVersion(7L).withTtlSeconds(40L))
+                .thenReturn(testedAccount.withVersion(7L).withTtlSeconds(39L));
+
+        mvc.perform(get("/users/1")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ttlSeconds", is(40)));
+        mvc.perform(get("/users/1")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ttlSeconds", is(39)));
+
+        Mockito.verify(crudService, Mockito.times(2)).readAccount("1");
+    }
+
+    @Test
+    void readAccount_whenRecorded_timesSerializationWithoutRepositoryReads(@TempDir Path tempDir) throws Exception {
+        UserAccount versionedAccount = testedAccount.withVersion(7L);
+        Mockito.when(crudService.readAccountVersion("1")).thenAnswer(invocation -> {
+            Thread.sleep(REPOSITORY_DELAY_MILLIS);
+            return 7L;
+        });
+        Mockito.when(crudService.readAccount("1")).thenAnswer(invocation -> {
+            Thread.sleep(REPOSITORY_DELAY_MILLIS);
+            return versionedAccount;
+        });
+        Path file = tempDir.resolve("serialization.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(SerializationEvent.class).withoutThreshold();
+            recording.start();
+            for (int i = 0; i < 2; i++) {
+                mvc.perform(get("/users/1")
+                                    .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk());
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> SerializationEvent.NAME.equals(event.getEventType().getName()))
+                .collect(Collectors.toList());
+        assertEquals(2, events.size());
+        assertFalse(events.get(0).getBoolean("cached"));
+        assertTrue(events.get(1).getBoolean("cached"));
+        for (RecordedEvent event : events) {
+            assertTrue(event.getDuration().toMillis() < REPOSITORY_DELAY_MILLIS);
+        }
+    }
+
+    @Test
+    void readAccount_whenVersionChanged_encodesNewVersion() throws Exception {
+        testedAccount = testedAccount.withVersion(7L);
+        Mockito.when(crudService.readAccountVersion("1")).thenReturn(7L);
+        Mockito.when(crudService.readAccount("1")).thenReturn(testedAccount);
+        mvc.perform(get("/users/1")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        UserAccount updatedAccount = UserAccount.builder()
+                .id(ID)
+                .username("updated")
+                .version(8L)
+                .build();
+        Mockito.when(crudService.readAccountVersion("1")).thenReturn(8L);
+        Mockito.when(crudService.readAccount("1")).thenReturn(updatedAccount);
+
+        mvc.perform(get("/users/1")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username", is("updated")))
+                .andExpect(jsonPath("$.version", is(8)));
+    }
+
+    @Test
+    void updateAccount_whenRequestIsCorrect_evictsCachedBody() throws Exception {
+        accountResponseCache.put(ID, 7L, new byte[0]);
+        Mockito.when(crudService.updateAccount(Mockito.any(UserAccount.class))).thenReturn(testedAccount);
+
+        mvc.perform(put("/users")
+                            .content(objectMapper.writeValueAsString(testedAccount))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        assertNull(accountResponseCache.get(ID, 7L));
+    }
+
     @Test
     void updateAccount_whenUserAccountIsAbsent_returnsBadRequestStatus() throws Exception {
         mvc.perform(put("/users")
@@ -125,7 +276,7 @@ class UserAccountControllerTest {
 
     @Test
     void updateAccount_whenUserAccountIdIsNull_returnsBadRequestStatus() throws Exception {
-        testedAccount.setId(null);
+        testedAccount = testedAccount.withId(null);
 
         mvc.perform(put("/users")
                             .content(objectMapper.writeValueAsString(testedAccount))
@@ -182,6 +333,67 @@ class UserAccountControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void executeTransaction_whenRequestIsCorrect_returnsResultsInOperationOrder() throws Exception {
+        ArgumentCaptor<List<AccountOperation<UserAccount>>> operationsCaptor = ArgumentCaptor.forClass(List.class);
+        Mockito.when(crudService.executeTransaction(operationsCaptor.capture()))
+                .thenReturn(List.of(testedAccount, testedAccount));
+        List<AccountOperation<UserAccount>> operations = List.of(AccountOperation.update(testedAccount),
+                                                                 AccountOperation.delete("2"));
+
+        mvc.perform(post("/users/transactions")
+                            .content(objectMapper.writeValueAsString(operations))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(testedAccount.getId())));
+
+        List<AccountOperation<UserAccount>> receivedOperations = operationsCaptor.getValue();
+        assertEquals(AccountOperationType.UPDATE, receivedOperations.get(0).getType());
+        assertEquals(testedAccount, receivedOperations.get(0).getAccount());
+        assertEquals(AccountOperationType.DELETE, receivedOperations.get(1).getType());
+        assertEquals("2", receivedOperations.get(1).getId());
+    }
+
+    @Test
+    void executeTransaction_whenServiceThrowsAccountNotFoundException_returnsNotFoundStatus() throws Exception {
+        Mockito.when(crudService.executeTransaction(Mockito.anyList())).thenThrow(AccountNotFoundException.class);
+
+        mvc.perform(post("/users/transactions")
+                            .content(objectMapper.writeValueAsString(List.of(AccountOperation.delete("9"))))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void executeTransaction_whenOperationHasNoAccountId_returnsBadRequestStatus() throws Exception {
+        testedAccount = testedAccount.withId(null);
+        List<AccountOperation<UserAccount>> operations = List.of(AccountOperation.delete("2"),
+                                                                 AccountOperation.create(testedAccount));
+
+        mvc.perform(post("/users/transactions")
+                            .content(objectMapper.writeValueAsString(operations))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(crudService);
+    }
+
+    @Test
+    void executeTransaction_whenOperationIsNull_returnsBadRequestStatus() throws Exception {
+        mvc.perform(post("/users/transactions")
+                            .content("[null]")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(crudService);
+    }
+
     @Test
     void readAccountList_whenPageCountIsLessThanOne_returnsBadRequestStatus() throws Exception {
         mvc.perform(get("/users?page=0&size=1")
@@ -198,17 +410,118 @@ class UserAccountControllerTest {
 
     @Test
     void readAccountList_whenRequestIsCorrect_returnsOkStatus() throws Exception {
-        List<UserAccount> accountList = List.of(testedAccount);
+        PagedResult<UserAccount> accountPage = pageOf(List.of(testedAccount), 1, 1, 1);
 
-        Mockito.when(crudService.readAccountList(1, 1)).thenReturn(accountList);
+        Mockito.when(crudService.readAccountPage(Mockito.eq(1), Mockito.eq(1), Mockito.any(AccountListQuery.class)))
+                .thenReturn(accountPage);
 
         mvc.perform(get("/users?page=1&size=1")
                             .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(testedAccount.getId())))
-                .andExpect(jsonPath("$[0].email", is(testedAccount.getEmail())))
-                .andExpect(jsonPath("$[0].username", is(testedAccount.getUsername())))
-                .andExpect(jsonPath("$[0].password", is(new String(testedAccount.getPassword()))));
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(testedAccount.getId())))
+                .andExpect(jsonPath("$.content[0].email", is(testedAccount.getEmail())))
+                .andExpect(jsonPath("$.content[0].username", is(testedAccount.getUsername())))
+                .andExpect(jsonPath("$.content[0].password", is(new String(testedAccount.getPassword()))));
+    }
+
+    @Test
+    void readAccountList_whenSortFieldIsUnknown_returnsBadRequestStatus() throws Exception {
+        mvc.perform(get("/users?page=1&size=1&sort=password")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void readAccountList_whenSortDirectionIsUnknown_returnsBadRequestStatus() throws Exception {
+        mvc.perform(get("/users?page=1&size=1&direction=sideways")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void readAccountList_whenFiltersAndSortAreProvided_passesQueryToService() throws Exception {
+        ArgumentCaptor<AccountListQuery> queryCaptor = ArgumentCaptor.forClass(AccountListQuery.class);
+        Mockito.when(crudService.readAccountPage(Mockito.eq(1), Mockito.eq(2), queryCaptor.capture()))
+                .thenReturn(pageOf(List.of(testedAccount), 1, 2, 1));
+
+        mvc.perform(get("/users?page=1&size=2&emailDomain=mail.com&usernamePrefix=fi&sort=username&direction=desc")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)));
+
+        AccountListQuery query = queryCaptor.getValue();
+        assertEquals("mail.com", query.getEmailDomain());
+        assertEquals("fi", query.getUsernamePrefix());
+        assertEquals(SortField.USERNAME, query.getSortField());
+        assertEquals(SortDirection.DESC, query.getSortDirection());
+    }
+
+    @Test
+    void readAccountList_whenMiddlePageIsRequested_returnsPaginationMetadataAndLinks() throws Exception {
+        Mockito.when(crudService.readAccountPage(Mockito.eq(2), Mockito.eq(1), Mockito.any(AccountListQuery.class)))
+                .thenReturn(pageOf(List.of(testedAccount), 2, 1, 3));
+
+        mvc.perform(get("/users?page=2&size=1&sort=username")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.page", is(2)))
+                .andExpect(jsonPath("$.size", is(1)))
+                .andExpect(jsonPath("$.totalElements", is(3)))
+                .andExpect(jsonPath("$.totalPages", is(3)))
+                .andExpect(jsonPath("$.links.self", is("http://localhost/users?size=1&sort=username&page=2")))
+                .andExpect(jsonPath("$.links.next", is("http://localhost/users?size=1&sort=username&page=3")))
+                .andExpect(jsonPath("$.links.prev", is("http://localhost/users?size=1&sort=username&page=1")));
+    }
+
+    @Test
+    void readAccountList_whenLastPageIsRequested_omitsNextLink() throws Exception {
+        Mockito.when(crudService.readAccountPage(Mockito.eq(1), Mockito.eq(3), Mockito.any(AccountListQuery.class)))
+                .thenReturn(pageOf(List.of(testedAccount), 1, 3, 1));
+
+        mvc.perform(get("/users?page=1&size=3")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPages", is(1)))
+                .andExpect(jsonPath("$.links.next").doesNotExist())
+                .andExpect(jsonPath("$.links.prev").doesNotExist());
+    }
+
+    @Test
+    void readAccountList_whenPageIsReadFromSnapshot_keepsSnapshotInLinks() throws Exception {
+        ArgumentCaptor<AccountListQuery> queryCaptor = ArgumentCaptor.forClass(AccountListQuery.class);
+        Mockito.when(crudService.readAccountPage(Mockito.eq(2), Mockito.eq(1), queryCaptor.capture()))
+                .thenReturn(pageOf(List.of(testedAccount), 2, 1, 3).toBuilder()
+                                    .snapshot("2s")
+                                    .build());
+
+        mvc.perform(get("/users?page=2&size=1&snapshot=2s")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.snapshot", is("2s")))
+                .andExpect(jsonPath("$.links.next", is("http://localhost/users?size=1&snapshot=2s&page=3")))
+                .andExpect(jsonPath("$.links.prev", is("http://localhost/users?size=1&snapshot=2s&page=1")));
+
+        assertEquals("2s", queryCaptor.getValue().getSnapshot());
+    }
+
+    @Test
+    void readAccountList_whenSnapshotExpired_returnsGoneStatus() throws Exception {
+        Mockito.when(crudService.readAccountPage(Mockito.eq(2), Mockito.eq(1), Mockito.any(AccountListQuery.class)))
+                .thenThrow(SnapshotNotFoundException.class);
+
+        mvc.perform(get("/users?page=2&size=1&snapshot=2s")
+                            .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGone());
+    }
+
+    private PagedResult<UserAccount> pageOf(List<UserAccount> content, int page, int size, long totalElements) {
+        return PagedResult.<UserAccount>builder()
+                .content(content)
+                .page(page)
+                .size(size)
+                .totalElements(totalElements)
+                .totalPages(PagedResult.totalPages(totalElements, size))
+                .build();
     }
 }
@@ -0,0 +1,82 @@
+package com.embark.crud.jfr;
+
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import com.embark.crud.exception.AccountNotFoundException;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.UserAccount;
+import com.embark.crud.repository.UserAccountRepositoryImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordingSummaryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void events_withoutRecording_areDisabled() {
+        assertFalse(new RepositoryOperationEvent().isEnabled());
+        assertFalse(new RequestEvent().isEnabled());
+        assertFalse(new SerializationEvent().isEnabled());
+    }
+
+    @Test
+    void summarize_recordingOfRepositoryOperations_groupsOperationsAndListsSlowestEvents() throws IOException {
+        UserAccountRepositoryImpl userAccountRepository = new UserAccountRepositoryImpl();
+        Path file = tempDir.resolve("crud.jfr");
+
+        try (Recording recording = new Recording()) {
+            EventRecording.EVENT_TYPES.forEach(eventType -> recording.enable(eventType).withoutThreshold());
+            recording.start();
+            userAccountRepository.createAccount(account("6"));
+            userAccountRepository.readAccount("6");
+            userAccountRepository.readAccount("1");
+            assertThrows(AccountNotFoundException.class, () -> userAccountRepository.readAccount("42"));
+            userAccountRepository.executeTransaction(List.of(AccountOperation.create(account("7")),
+                                                             AccountOperation.delete("6")));
+            SerializationEvent serialization = new SerializationEvent();
+            serialization.begin();
+            serialization.complete("1", 128, true);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        RecordingSummary summary = RecordingSummary.of(file, 3);
+
+        Map<String, RecordingSummary.OperationStats> operations = summary.getOperations().stream()
+                .collect(Collectors.toMap(stats -> stats.getEvent() + " " + stats.getOperation(), Function.identity()));
+        assertEquals(1, operations.get("RepositoryOperation CREATE").getCount());
+        assertEquals(3, operations.get("RepositoryOperation READ").getCount());
+        assertEquals(1, operations.get("RepositoryOperation TRANSACTION").getCount());
+        assertEquals(1, operations.get("Serialization CACHED").getCount());
+        assertEquals(3, summary.getSlowest().size());
+        for (int i = 1; i < summary.getSlowest().size(); i++) {
+            assertTrue(summary.getSlowest().get(i - 1).getDuration().compareTo(summary.getSlowest().get(i).getDuration()) >= 0);
+        }
+        assertTrue(RecordingSummary.of(file, 10).getSlowest().stream()
+                           .anyMatch(event -> event.getDetail().contains("id=42")
+                                   && event.getDetail().contains("result=AccountNotFoundException")));
+        assertTrue(summary.format().contains("RepositoryOperation"));
+    }
+
+    private static UserAccount account(String id) {
+        return UserAccount.builder()
+                .id(id)
+                .email("user" + id + "@mail.com")
+                .username("user" + id)
+                .password("password".toCharArray())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.embark.crud.model;
+
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SortFieldTest {
+
+    @Test
+    void fromValue_underTurkishLocale_parsesSortFieldAndDirection() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals(SortField.ID, SortField.fromValue("id"));
+            assertEquals(SortField.EMAIL, SortField.fromValue("email"));
+            assertEquals(SortDirection.DESC, SortDirection.fromValue("desc"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.embark.crud.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class UserAccountTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void withers_returnNewAccountAndLeaveOriginalUnchanged() {
+        UserAccount userAccount = UserAccount.builder()
+                .id("1")
+                .username("first")
+                .build();
+
+        UserAccount renamed = userAccount.withUsername("renamed");
+
+        assertEquals("first", userAccount.getUsername());
+        assertEquals("renamed", renamed.getUsername());
+        assertEquals("1", renamed.getId());
+        assertNotEquals(userAccount, renamed);
+        assertEquals(userAccount, renamed.toBuilder().username("first").build());
+    }
+
+    @Test
+    void password_isCopiedOnTheWayInAndOut() {
+        char[] password = "secret".toCharArray();
+        UserAccount userAccount = UserAccount.builder()
+                .id("1")
+                .password(password)
+                .build();
+
+        password[0] = 'X';
+        userAccount.getPassword()[1] = 'X';
+
+        assertArrayEquals("secret".toCharArray(), userAccount.getPassword());
+    }
+
+    @Test
+    void json_roundTripsAndIgnoresVersionOnInput() throws Exception {
+        String json = "{\"id\":\"1\",\"email\":\"first@mail.com\",\"username\":\"first\",\"password\":\"firstPassword\","
+                + "\"ttlSeconds\":60,\"version\":5}";
+
+        UserAccount userAccount = objectMapper.readValue(json, UserAccount.class);
+
+        assertEquals("1", userAccount.getId());
+        assertEquals("first@mail.com", userAccount.getEmail());
+        assertArrayEquals("firstPassword".toCharArray(), userAccount.getPassword());
+        assertEquals(60L, userAccount.getTtlSeconds());
+        assertNull(userAccount.getVersion());
+        String written = objectMapper.writeValueAsString(userAccount.withVersion(5L));
+        assertEquals(userAccount, objectMapper.readValue(written, UserAccount.class));
+    }
+}
@@ -0,0 +1,130 @@
+package com.embark.crud.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import com.embark.crud.model.UserAccount;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountRecordTest {
+
+    @Test
+    void toUserAccount_returnsEqualAccount() {
+        UserAccount userAccount = UserAccount.builder()
+                .id("1")
+                .email("first@mail.com")
+                .username("Jürgen 名前 😀")
+                .password("firstPassword".toCharArray())
+                .build();
+
+        assertEquals(userAccount, AccountRecord.of(userAccount, 1, AccountRecord.NO_EXPIRY, null).toUserAccount(0));
+    }
+
+    @Test
+    void toUserAccount_whenFieldsAreNullOrEmpty_keepsThemApart() {
+        UserAccount userAccount = UserAccount.builder()
+                .id("1")
+                .email("")
+                .build();
+
+        UserAccount restored = AccountRecord.of(userAccount, 1, AccountRecord.NO_EXPIRY, null).toUserAccount(0);
+
+        assertEquals("", restored.getEmail());
+        assertNull(restored.getUsername());
+        assertNull(restored.getPassword());
+    }
+
+    @Test
+    void toUserAccount_whenFieldsAreLongerThanOneLengthByte_returnsEqualAccount() {
+        char[] password = new char[20_000];
+        Arrays.fill(password, 'é');
+        UserAccount userAccount = UserAccount.builder()
+                .id("1")
+                .email("e".repeat(300) + "@mail.com")
+                .username("u".repeat(127))
+                .password(password)
+                .build();
+
+        assertEquals(userAccount, AccountRecord.of(userAccount, 1, AccountRecord.NO_EXPIRY, null).toUserAccount(0));
+    }
+
+    @Test
+    void comparing_ordersByFieldThenById() {
+        Comparator<AccountRecord> comparator = AccountRecord.comparing(AccountRecord.Field.USERNAME);
+        AccountRecord first = record("2", "alice");
+        AccountRecord second = record("1", "bob");
+        AccountRecord third = record("3", "bob");
+        AccountRecord withoutUsername = record("9", null);
+
+        assertTrue(comparator.compare(first, second) < 0);
+        assertTrue(comparator.compare(second, third) < 0);
+        assertTrue(comparator.compare(withoutUsername, first) < 0);
+        assertEquals(0, comparator.compare(third, record("3", "bob")));
+    }
+
+    @Test
+    void fieldMatchers_matchPrefixAndCaseInsensitiveSuffix() {
+        AccountRecord accountRecord = AccountRecord.of(UserAccount.builder()
+                                                               .id("1")
+                                                               .email("first@Mail.COM")
+                                                               .username("first")
+                                                               .build(), 1, AccountRecord.NO_EXPIRY, null);
+
+        assertTrue(accountRecord.fieldStartsWith(AccountRecord.Field.USERNAME, bytes("fir")));
+        assertFalse(accountRecord.fieldStartsWith(AccountRecord.Field.USERNAME, bytes("firsts")));
+        assertTrue(accountRecord.fieldEndsWithIgnoreAsciiCase(AccountRecord.Field.EMAIL, bytes("@mail.com")));
+        assertFalse(accountRecord.fieldEndsWithIgnoreAsciiCase(AccountRecord.Field.EMAIL, bytes("@other.com")));
+        assertFalse(accountRecord.fieldStartsWith(AccountRecord.Field.PASSWORD, bytes("")));
+    }
+
+    @Test
+    void toUserAccount_returnsSecondsLeftUntilDeadlineRoundedUp() {
+        UserAccount userAccount = UserAccount.builder()
+                .id("1")
+                .build();
+
+        assertEquals(60, AccountRecord.of(userAccount, 1, 60_000, null).toUserAccount(0).getTtlSeconds());
+        assertEquals(1, AccountRecord.of(userAccount, 1, 60_000, null).toUserAccount(59_001).getTtlSeconds());
+        assertNull(AccountRecord.of(userAccount, 1, AccountRecord.NO_EXPIRY, null).toUserAccount(0).getTtlSeconds());
+    }
+
+    @Test
+    void visibleAt_returnsVersionLiveAtTheGivenVersion() {
+        AccountRecord created = AccountRecord.of(UserAccount.builder()
+                                                         .id("1")
+                                                         .username("first")
+                                                         .build(), 2, AccountRecord.NO_EXPIRY, null);
+        created.supersede(5);
+        AccountRecord updated = AccountRecord.of(UserAccount.builder()
+                                                         .id("1")
+                                                         .username("updated")
+                                                         .build(), 5, AccountRecord.NO_EXPIRY, created);
+        updated.supersede(8);
+
+        assertNull(updated.visibleAt(1));
+        assertSame(created, updated.visibleAt(2));
+        assertSame(created, updated.visibleAt(4));
+        assertSame(updated, updated.visibleAt(5));
+        assertNull(updated.visibleAt(8));
+        assertTrue(created.isVisibleAt(4));
+        assertFalse(created.isVisibleAt(5));
+        assertFalse(updated.isCurrent());
+    }
+
+    private static AccountRecord record(String id, String username) {
+        return AccountRecord.of(UserAccount.builder()
+                                        .id(id)
+                                        .username(username)
+                                        .build(), 1, AccountRecord.NO_EXPIRY, null);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package com.embark.crud.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 100;
+
+    @Test
+    void advance_whenDeadlineIsNotReached_returnsNothing() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+        wheel.schedule("a", 1_000);
+
+        assertTrue(wheel.advance(999).isEmpty());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void advance_whenDeadlineIsReached_returnsEntry() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 0);
+        wheel.schedule("a", 1_050);
+
+        assertTrue(wheel.advance(1_050).isEmpty());
+        List<TimingWheel.Entry<String>> expired = wheel.advance(1_100);
+
+        assertEquals(1, expired.size());
+        assertEquals("a", expired.get(0).key);
+        assertEquals(1_050, expired.get(0).deadlineMillis);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_whenDeadlineIsInThePast_returnsEntryOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 1_000);
+        wheel.schedule("a", 500);
+
+        assertEquals(1, wheel.advance(1_000).size());
+    }
+
+    @Test
+    void advance_whenDeadlineIsAtTheExtremesOfLong_neitherOverflows() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MILLIS, 1_000);
+        wheel.schedule("never", Long.MAX_VALUE);
+        wheel.schedule("always", Long.MIN_VALUE);
+
+        List<TimingWheel.Entry<String>> expired = wheel.advance(1_000_000);
+
+        assertEquals(1, expired.size());
+        assertEquals("always", expired.get(0).key);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void advance_whenDeadlinesSpanAllLevels_returnsEachEntryOnTimeAndOnce() {
+        long startMillis = 12_345;
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK_MILLIS, startMillis);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long delayTicks = (long) Math.pow(64, random.nextDouble() * 4.1);
+            long deadline = startMillis + delayTicks * TICK_MILLIS + random.nextInt((int) TICK_MILLIS);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        long now = startMillis;
+        long step = 64 * 64 * TICK_MILLIS / 7;
+        while (wheel.size() > 0) {
+            now += step;
+            for (TimingWheel.Entry<Long> entry : wheel.advance(now)) {
+                assertTrue(entry.deadlineMillis <= now, "entry fired before its deadline");
+                assertTrue(entry.deadlineMillis > now - step - TICK_MILLIS, "entry fired late");
+                fired.add(entry.key);
+            }
+        }
+
+        assertEquals(deadlines.stream().sorted().collect(Collectors.toList()),
+                     fired.stream().sorted().collect(Collectors.toList()));
+    }
+}
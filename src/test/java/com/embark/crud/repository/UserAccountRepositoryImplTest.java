@@ -1,16 +1,41 @@
 package com.embark.crud.repository;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import com.embark.crud.audit.AuditEvent;
+import com.embark.crud.audit.AuditOperation;
+import com.embark.crud.audit.AuditTrail;
 import com.embark.crud.exception.AccountAlreadyExistsException;
 import com.embark.crud.exception.AccountNotFoundException;
+import com.embark.crud.exception.SnapshotNotFoundException;
+import com.embark.crud.model.AccountListQuery;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.PagedResult;
+import com.embark.crud.model.SortDirection;
+import com.embark.crud.model.SortField;
 import com.embark.crud.model.UserAccount;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class UserAccountRepositoryImplTest {
 
@@ -89,6 +114,21 @@ class UserAccountRepositoryImplTest {
         assertEquals(accountToUpdate, accountFromCache);
     }
 
+    @Test
+    void readAccountVersion_whenAccountIsUpdated_returnsNewVersion() {
+        long createdVersion = userAccountRepository.readAccountVersion("1");
+
+        userAccountRepository.updateAccount(UserAccount.builder()
+                                                    .id("1")
+                                                    .username("updated")
+                                                    .build());
+
+        assertTrue(userAccountRepository.readAccountVersion("1") > createdVersion);
+        assertEquals(userAccountRepository.readAccountVersion("1"), userAccountRepository.readAccount("1").getVersion());
+        assertEquals(createdVersion, userAccountRepository.readAccountVersion("2"));
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.readAccountVersion("9"));
+    }
+
     @Test
     void updateAccount_whenAccountNotFound_throwsAccountNotFoundException() {
         UserAccount accountToUpdate = UserAccount.builder()
@@ -156,6 +196,602 @@ class UserAccountRepositoryImplTest {
         assertFifthAccount(accounts.get(1));
     }
 
+    @Test
+    void readAccountList_whenSortedByUsername_returnsAccountsInUsernameOrder() {
+        AccountListQuery query = AccountListQuery.builder()
+                .sortField(SortField.USERNAME)
+                .build();
+
+        List<UserAccount> accounts = userAccountRepository.readAccountPage(1, 5, query).getContent();
+
+        assertEquals(5, accounts.size());
+        assertFifthAccount(accounts.get(0));
+        assertFirstAccount(accounts.get(1));
+        assertFourthAccount(accounts.get(2));
+        assertSecondAccount(accounts.get(3));
+        assertThirdAccount(accounts.get(4));
+    }
+
+    @Test
+    void readAccountList_whenSortedByIdDescending_returnsAccountsInReverseIdOrder() {
+        AccountListQuery query = AccountListQuery.builder()
+                .sortDirection(SortDirection.DESC)
+                .build();
+
+        List<UserAccount> accounts = userAccountRepository.readAccountPage(1, 2, query).getContent();
+
+        assertEquals(2, accounts.size());
+        assertFifthAccount(accounts.get(0));
+        assertFourthAccount(accounts.get(1));
+    }
+
+    @Test
+    void readAccountList_whenSortedByEmailDescending_returnsSecondPageInReverseEmailOrder() {
+        AccountListQuery query = AccountListQuery.builder()
+                .sortField(SortField.EMAIL)
+                .sortDirection(SortDirection.DESC)
+                .build();
+
+        List<UserAccount> accounts = userAccountRepository.readAccountPage(2, 2, query).getContent();
+
+        assertEquals(2, accounts.size());
+        assertFourthAccount(accounts.get(0));
+        assertFirstAccount(accounts.get(1));
+    }
+
+    @Test
+    void readAccountList_whenFilteredByUsernamePrefix_returnsMatchingAccounts() {
+        AccountListQuery query = AccountListQuery.builder()
+                .usernamePrefix("f")
+                .sortField(SortField.USERNAME)
+                .build();
+
+        List<UserAccount> accounts = userAccountRepository.readAccountPage(1, 5, query).getContent();
+
+        assertEquals(3, accounts.size());
+        assertFifthAccount(accounts.get(0));
+        assertFirstAccount(accounts.get(1));
+        assertFourthAccount(accounts.get(2));
+    }
+
+    @Test
+    void readAccountList_whenFilteredByEmailDomain_returnsMatchingAccounts() {
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .email("sixth@other.org")
+                                                    .username("sixth")
+                                                    .password("sixthPassword".toCharArray())
+                                                    .build());
+        AccountListQuery query = AccountListQuery.builder()
+                .emailDomain("Other.org")
+                .build();
+
+        List<UserAccount> accounts = userAccountRepository.readAccountPage(1, 5, query).getContent();
+
+        assertEquals(1, accounts.size());
+        assertEquals("6", accounts.get(0).getId());
+    }
+
+    @Test
+    void readAccountList_whenFilteredPageNumberIsTooHigh_returnsLastFilteredPage() {
+        AccountListQuery query = AccountListQuery.builder()
+                .usernamePrefix("f")
+                .build();
+
+        List<UserAccount> accounts = userAccountRepository.readAccountPage(10, 2, query).getContent();
+
+        assertEquals(1, accounts.size());
+        assertFifthAccount(accounts.get(0));
+    }
+
+    @Test
+    void readAccountList_whenAccountIsUpdated_reordersUsernameIndex() {
+        userAccountRepository.updateAccount(UserAccount.builder()
+                                                    .id("5")
+                                                    .email("fifth@mail.com")
+                                                    .username("zeta")
+                                                    .password("fifthPassword".toCharArray())
+                                                    .build());
+        AccountListQuery query = AccountListQuery.builder()
+                .sortField(SortField.USERNAME)
+                .sortDirection(SortDirection.DESC)
+                .build();
+
+        List<UserAccount> accounts = userAccountRepository.readAccountPage(1, 5, query).getContent();
+
+        assertEquals(5, accounts.size());
+        assertEquals("zeta", accounts.get(0).getUsername());
+        assertThirdAccount(accounts.get(1));
+    }
+
+    @Test
+    void readAccountPage_returnsTotalsMaintainedOnCreateAndDelete() {
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .build());
+        userAccountRepository.deleteAccount("1");
+        userAccountRepository.deleteAccount("2");
+
+        PagedResult<UserAccount> accountPage = userAccountRepository.readAccountPage(1, 3, AccountListQuery.builder().build());
+
+        assertEquals(1, accountPage.getPage());
+        assertEquals(3, accountPage.getSize());
+        assertEquals(4, accountPage.getTotalElements());
+        assertEquals(2, accountPage.getTotalPages());
+        assertEquals(3, accountPage.getContent().size());
+    }
+
+    @Test
+    void readAccountPage_whenPageNumberIsTooHigh_returnsServedPageNumber() {
+        PagedResult<UserAccount> accountPage = userAccountRepository.readAccountPage(20, 3, AccountListQuery.builder().build());
+
+        assertEquals(2, accountPage.getPage());
+        assertEquals(5, accountPage.getTotalElements());
+        assertEquals(2, accountPage.getTotalPages());
+        assertFourthAccount(accountPage.getContent().get(0));
+    }
+
+    @Test
+    void readAccountPage_whenFiltered_returnsFilteredTotals() {
+        AccountListQuery query = AccountListQuery.builder()
+                .usernamePrefix("f")
+                .sortField(SortField.USERNAME)
+                .build();
+
+        PagedResult<UserAccount> accountPage = userAccountRepository.readAccountPage(10, 2, query);
+
+        assertEquals(2, accountPage.getPage());
+        assertEquals(3, accountPage.getTotalElements());
+        assertEquals(2, accountPage.getTotalPages());
+        assertFourthAccount(accountPage.getContent().get(0));
+    }
+
+    @Test
+    void mutations_recordAuditEventsOnlyWhenSuccessful() {
+        List<AuditEvent> auditEvents = new ArrayList<>();
+        userAccountRepository = new UserAccountRepositoryImpl(auditEvents::add);
+
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .build());
+        userAccountRepository.updateAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .username("sixth")
+                                                    .build());
+        userAccountRepository.readAccount("6");
+        userAccountRepository.deleteAccount("6");
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.deleteAccount("6"));
+
+        assertEquals(3, auditEvents.size());
+        assertEquals(AuditOperation.CREATE, auditEvents.get(0).getOperation());
+        assertEquals(AuditOperation.UPDATE, auditEvents.get(1).getOperation());
+        assertEquals(AuditOperation.DELETE, auditEvents.get(2).getOperation());
+        assertEquals("6", auditEvents.get(2).getAccountId());
+    }
+
+    @Test
+    void expireAccounts_whenTtlRunsOut_removesAccount() {
+        MutableClock clock = new MutableClock();
+        List<AuditEvent> auditEvents = new ArrayList<>();
+        userAccountRepository = new UserAccountRepositoryImpl(auditEvents::add, clock);
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .username("sixth")
+                                                    .ttlSeconds(60L)
+                                                    .build());
+
+        clock.advanceSeconds(59);
+        userAccountRepository.expireAccounts();
+        assertEquals("sixth", userAccountRepository.readAccount("6").getUsername());
+
+        clock.advanceSeconds(1);
+        userAccountRepository.expireAccounts();
+
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.readAccount("6"));
+        assertEquals(5, userAccountRepository.getAccountCount());
+        assertEquals(1, userAccountRepository.getExpiredAccounts());
+        assertEquals(AuditOperation.EXPIRE, auditEvents.get(auditEvents.size() - 1).getOperation());
+        assertFalse(userAccountRepository.readAccountList(1, 10).stream()
+                            .anyMatch(userAccount -> "6".equals(userAccount.getId())));
+    }
+
+    @Test
+    void updateAccount_whenWritingBackAccountAsRead_keepsExpiry() {
+        MutableClock clock = new MutableClock();
+        userAccountRepository = new UserAccountRepositoryImpl(event -> { }, clock);
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .username("trial")
+                                                    .ttlSeconds(60L)
+                                                    .build());
+
+        clock.advanceSeconds(20);
+        UserAccount readAccount = userAccountRepository.readAccount("6");
+        userAccountRepository.updateAccount(readAccount.withUsername("renamed"));
+
+        assertEquals(40, readAccount.getTtlSeconds());
+        assertEquals(40, userAccountRepository.readAccount("6").getTtlSeconds());
+        clock.advanceSeconds(40);
+        userAccountRepository.expireAccounts();
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.readAccount("6"));
+        assertEquals(1, userAccountRepository.getExpiredAccounts());
+    }
+
+    @Test
+    void expireAccounts_whenTtlOverflowsDeadline_keepsAccount() {
+        MutableClock clock = new MutableClock();
+        userAccountRepository = new UserAccountRepositoryImpl(event -> { }, clock);
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .username("sixth")
+                                                    .ttlSeconds(Long.MAX_VALUE)
+                                                    .build());
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("7")
+                                                    .username("seventh")
+                                                    .ttlSeconds(10_000_000_000_000_000L)
+                                                    .build());
+
+        clock.advanceSeconds(60);
+        userAccountRepository.expireAccounts();
+
+        assertEquals("sixth", userAccountRepository.readAccount("6").getUsername());
+        assertEquals("seventh", userAccountRepository.readAccount("7").getUsername());
+        assertEquals(0, userAccountRepository.getExpiredAccounts());
+    }
+
+    @Test
+    void readAccount_whenTtlRanOutBeforeExpiryRun_throwsAccountNotFoundException() {
+        MutableClock clock = new MutableClock();
+        userAccountRepository = new UserAccountRepositoryImpl(event -> { }, clock);
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .ttlSeconds(1L)
+                                                    .build());
+
+        clock.advanceSeconds(1);
+
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.readAccount("6"));
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.deleteAccount("6"));
+        assertEquals(1, userAccountRepository.getExpiredAccounts());
+    }
+
+    @Test
+    void expireAccounts_whenUpdateRemovesTtl_keepsAccount() {
+        MutableClock clock = new MutableClock();
+        userAccountRepository = new UserAccountRepositoryImpl(event -> { }, clock);
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .ttlSeconds(10L)
+                                                    .build());
+        userAccountRepository.updateAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .username("permanent")
+                                                    .build());
+        long committedTransactions = userAccountRepository.getCommittedTransactions();
+        long version = userAccountRepository.readAccountVersion("6");
+
+        clock.advanceSeconds(3600);
+        userAccountRepository.expireAccounts();
+
+        assertEquals("permanent", userAccountRepository.readAccount("6").getUsername());
+        assertEquals(0, userAccountRepository.getExpiredAccounts());
+        assertEquals(committedTransactions, userAccountRepository.getCommittedTransactions());
+        assertEquals(version, userAccountRepository.readAccountVersion("6"));
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("7")
+                                                    .build());
+        assertEquals(version + 1, userAccountRepository.readAccountVersion("7"));
+    }
+
+    @Test
+    void createAccount_whenPreviousAccountWithSameIdExpired_createsAccount() {
+        MutableClock clock = new MutableClock();
+        userAccountRepository = new UserAccountRepositoryImpl(event -> { }, clock);
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .ttlSeconds(5L)
+                                                    .build());
+
+        clock.advanceSeconds(5);
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .username("again")
+                                                    .build());
+
+        assertEquals("again", userAccountRepository.readAccount("6").getUsername());
+        assertEquals(6, userAccountRepository.getAccountCount());
+    }
+
+    @Test
+    void readAccountPage_withSnapshot_readsStateOfFirstPageWhileWritesGoOn() {
+        AccountListQuery query = AccountListQuery.builder()
+                .sortField(SortField.USERNAME)
+                .build();
+        PagedResult<UserAccount> firstPage = userAccountRepository.readAccountPage(1, 2, query);
+
+        userAccountRepository.updateAccount(UserAccount.builder()
+                                                    .id("2")
+                                                    .username("aaa")
+                                                    .build());
+        userAccountRepository.deleteAccount("4");
+        userAccountRepository.createAccount(UserAccount.builder()
+                                                    .id("6")
+                                                    .username("b")
+                                                    .build());
+        AccountListQuery snapshotQuery = AccountListQuery.builder()
+                .sortField(SortField.USERNAME)
+                .snapshot(firstPage.getSnapshot())
+                .build();
+        PagedResult<UserAccount> secondPage = userAccountRepository.readAccountPage(2, 2, snapshotQuery);
+        PagedResult<UserAccount> latestPage = userAccountRepository.readAccountPage(1, 2, query);
+
+        assertNotNull(firstPage.getSnapshot());
+        assertEquals(firstPage.getSnapshot(), secondPage.getSnapshot());
+        assertEquals(5, secondPage.getTotalElements());
+        assertFourthAccount(secondPage.getContent().get(0));
+        assertSecondAccount(secondPage.getContent().get(1));
+        assertNotEquals(firstPage.getSnapshot(), latestPage.getSnapshot());
+        assertEquals("aaa", latestPage.getContent().get(0).getUsername());
+        assertEquals("b", latestPage.getContent().get(1).getUsername());
+    }
+
+    @Test
+    void collectGarbage_keepsVersionsUntilSnapshotLeaseRunsOut() {
+        MutableClock clock = new MutableClock();
+        userAccountRepository = new UserAccountRepositoryImpl(event -> { }, clock);
+        AccountListQuery query = AccountListQuery.builder()
+                .sortField(SortField.EMAIL)
+                .build();
+        String snapshot = userAccountRepository.readAccountPage(1, 2, query).getSnapshot();
+        userAccountRepository.updateAccount(UserAccount.builder()
+                                                    .id("1")
+                                                    .email("changed@mail.com")
+                                                    .build());
+        userAccountRepository.deleteAccount("2");
+        AccountListQuery snapshotQuery = AccountListQuery.builder()
+                .sortField(SortField.EMAIL)
+                .snapshot(snapshot)
+                .build();
+
+        userAccountRepository.collectGarbage();
+        List<UserAccount> heldAccounts = userAccountRepository.readAccountPage(1, 10, snapshotQuery).getContent();
+
+        assertEquals(5, heldAccounts.size());
+        assertFifthAccount(heldAccounts.get(0));
+        assertFirstAccount(heldAccounts.get(1));
+        assertSecondAccount(heldAccounts.get(3));
+
+        clock.advanceSeconds(61);
+        userAccountRepository.collectGarbage();
+        List<UserAccount> latestAccounts = userAccountRepository.readAccountPage(1, 10, query).getContent();
+
+        assertThrows(SnapshotNotFoundException.class, () -> userAccountRepository.readAccountPage(1, 10, snapshotQuery));
+        assertEquals(4, latestAccounts.size());
+        assertEquals("changed@mail.com", latestAccounts.get(0).getEmail());
+        assertEquals("1", userAccountRepository.readAccount("1").getId());
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.readAccount("2"));
+    }
+
+    @Test
+    void readAccountList_opensNoSnapshot() {
+        userAccountRepository.readAccountList(1, 10);
+
+        assertEquals(0, userAccountRepository.getOpenSnapshots());
+    }
+
+    @Test
+    void collectGarbage_releasesSnapshotNobodyFollowedAfterFirstLease() {
+        MutableClock clock = new MutableClock();
+        userAccountRepository = new UserAccountRepositoryImpl(event -> { }, clock);
+        String followed = userAccountRepository.readAccountPage(1, 2, AccountListQuery.builder().build()).getSnapshot();
+        userAccountRepository.deleteAccount("5");
+        String abandoned = userAccountRepository.readAccountPage(1, 2, AccountListQuery.builder().build()).getSnapshot();
+        userAccountRepository.deleteAccount("4");
+
+        clock.advanceSeconds(3);
+        userAccountRepository.readAccountPage(2, 2, AccountListQuery.builder().snapshot(followed).build());
+        clock.advanceSeconds(3);
+        userAccountRepository.collectGarbage();
+
+        assertEquals(1, userAccountRepository.getOpenSnapshots());
+        assertThrows(SnapshotNotFoundException.class, () -> userAccountRepository.readAccountPage(
+                1, 10, AccountListQuery.builder().snapshot(abandoned).build()));
+        assertEquals(5, userAccountRepository.readAccountPage(1, 10, AccountListQuery.builder().snapshot(followed).build())
+                .getContent()
+                .size());
+    }
+
+    @Test
+    void readAccountPage_whenTokenUnknown_throwsSnapshotNotFoundException() {
+        AccountListQuery query = AccountListQuery.builder()
+                .snapshot("not a snapshot")
+                .build();
+
+        assertThrows(SnapshotNotFoundException.class, () -> userAccountRepository.readAccountPage(1, 10, query));
+    }
+
+    @Test
+    void readAccountPage_withSnapshot_returnsConsistentPagesDuringConcurrentWrites() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                String id = "w" + (i % 50);
+                try {
+                    userAccountRepository.createAccount(UserAccount.builder()
+                                                                .id(id)
+                                                                .username(id)
+                                                                .build());
+                } catch (AccountAlreadyExistsException e) {
+                    userAccountRepository.deleteAccount(id);
+                }
+                userAccountRepository.collectGarbage();
+            }
+        });
+        writer.start();
+        try {
+            for (int round = 0; round < 200; round++) {
+                AccountListQuery query = AccountListQuery.builder()
+                        .sortField(SortField.USERNAME)
+                        .build();
+                PagedResult<UserAccount> page = userAccountRepository.readAccountPage(1, 7, query);
+                AccountListQuery snapshotQuery = AccountListQuery.builder()
+                        .sortField(SortField.USERNAME)
+                        .snapshot(page.getSnapshot())
+                        .build();
+                Set<String> ids = new HashSet<>();
+                for (int pageNumber = 1; pageNumber <= page.getTotalPages(); pageNumber++) {
+                    PagedResult<UserAccount> snapshotPage = userAccountRepository.readAccountPage(pageNumber, 7, snapshotQuery);
+                    assertEquals(page.getTotalElements(), snapshotPage.getTotalElements());
+                    snapshotPage.getContent().forEach(userAccount -> ids.add(userAccount.getId()));
+                }
+                assertEquals(page.getTotalElements(), ids.size());
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    void executeTransaction_appliesOperationsInOrderAndReturnsResults() {
+        List<AuditEvent> auditEvents = new ArrayList<>();
+        userAccountRepository = new UserAccountRepositoryImpl(auditEvents::add);
+
+        List<UserAccount> results = userAccountRepository.executeTransaction(List.of(
+                AccountOperation.create(UserAccount.builder()
+                                                .id("6")
+                                                .username("sixth")
+                                                .build()),
+                AccountOperation.update(UserAccount.builder()
+                                                .id("6")
+                                                .username("renamed")
+                                                .build()),
+                AccountOperation.update(UserAccount.builder()
+                                                .id("1")
+                                                .username("merged")
+                                                .build()),
+                AccountOperation.delete("2")));
+
+        assertEquals("sixth", results.get(0).getUsername());
+        assertEquals("sixth", results.get(1).getUsername());
+        assertFirstAccount(results.get(2));
+        assertSecondAccount(results.get(3));
+        assertEquals("renamed", userAccountRepository.readAccount("6").getUsername());
+        assertEquals("merged", userAccountRepository.readAccount("1").getUsername());
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.readAccount("2"));
+        assertEquals(5, userAccountRepository.getAccountCount());
+        assertEquals(4, auditEvents.size());
+    }
+
+    @Test
+    void updateAccount_whenAuditTrailBlocks_releasesKeyLockFirst() throws Exception {
+        CountDownLatch recording = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean blocked = new AtomicBoolean();
+        userAccountRepository = new UserAccountRepositoryImpl(new AuditTrail() {
+            @Override
+            public void record(AuditEvent event) {
+            }
+
+            @Override
+            public void recordAll(List<AuditEvent> events) {
+                if (blocked.compareAndSet(false, true)) {
+                    recording.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> blockedUpdate = executor.submit(() -> userAccountRepository.updateAccount(
+                    UserAccount.builder().id("1").username("blocked").build()));
+            assertTrue(recording.await(5, TimeUnit.SECONDS));
+
+            executor.submit(() -> userAccountRepository.updateAccount(
+                    UserAccount.builder().id("1").username("next").build())).get(5, TimeUnit.SECONDS);
+
+            assertEquals("next", userAccountRepository.readAccount("1").getUsername());
+            release.countDown();
+            blockedUpdate.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeTransaction_whenOperationFails_appliesNothing() {
+        List<AuditEvent> auditEvents = new ArrayList<>();
+        userAccountRepository = new UserAccountRepositoryImpl(auditEvents::add);
+        List<AccountOperation<UserAccount>> operations = List.of(
+                AccountOperation.update(UserAccount.builder()
+                                                .id("1")
+                                                .username("merged")
+                                                .build()),
+                AccountOperation.delete("3"),
+                AccountOperation.delete("9"));
+
+        assertThrows(AccountNotFoundException.class, () -> userAccountRepository.executeTransaction(operations));
+
+        assertFirstAccount(userAccountRepository.readAccount("1"));
+        assertThirdAccount(userAccountRepository.readAccount("3"));
+        assertEquals(5, userAccountRepository.getAccountCount());
+        assertEquals(0, auditEvents.size());
+    }
+
+    @Test
+    void executeTransaction_whenConcurrentTransactionsRenamePair_readersNeverSeeHalfOfOne() throws Exception {
+        int threads = 4;
+        int transactionsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int writer = thread;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < transactionsPerThread; i++) {
+                    String suffix = writer + "-" + i;
+                    UserAccount first = UserAccount.builder()
+                            .id("1")
+                            .username("first-" + suffix)
+                            .build();
+                    UserAccount second = UserAccount.builder()
+                            .id("2")
+                            .username("second-" + suffix)
+                            .build();
+                    userAccountRepository.executeTransaction(writer % 2 == 0
+                            ? List.of(AccountOperation.update(first), AccountOperation.update(second))
+                            : List.of(AccountOperation.update(second), AccountOperation.update(first)));
+                }
+            }));
+        }
+        Future<?> reader = executor.submit(() -> {
+            while (running.get()) {
+                List<UserAccount> pair = userAccountRepository.readAccountList(1, 2);
+                String firstSuffix = pair.get(0).getUsername().replace("first", "");
+                String secondSuffix = pair.get(1).getUsername().replace("second", "");
+                assertEquals(firstSuffix, secondSuffix);
+            }
+        });
+        try {
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            reader.get(30, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+
+        assertEquals(1 + threads * transactionsPerThread, userAccountRepository.getCommittedTransactions());
+        assertTrue(userAccountRepository.getCommitGroups() <= userAccountRepository.getCommittedTransactions());
+    }
+
     @Test
     void initCache() {
         assertFirstAccount(userAccountRepository.readAccount("1"));
@@ -204,4 +840,28 @@ class UserAccountRepositoryImplTest {
         assertEquals("fifth", fifthAccount.getUsername());
         assertEquals("[f, i, f, t, h, P, a, s, s, w, o, r, d]", Arrays.toString(fifthAccount.getPassword()));
     }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2022-06-01T00:00:00Z");
+
+        void advanceSeconds(long seconds) {
+            instant = instant.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
 }
@@ -1,6 +1,10 @@
 package com.embark.crud.service;
 
 import java.util.List;
+import com.embark.crud.model.AccountListQuery;
+import com.embark.crud.model.AccountOperation;
+import com.embark.crud.model.PagedResult;
+import com.embark.crud.model.SortField;
 import com.embark.crud.model.UserAccount;
 import com.embark.crud.repository.CrudRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -58,6 +62,16 @@ class CrudServiceImplTest {
         verify(userAccountCrudRepository, only()).readAccount(ID);
     }
 
+    @Test
+    void readAccountVersion() {
+        when(userAccountCrudRepository.readAccountVersion(ID)).thenReturn(7L);
+
+        long returnedVersion = userAccountCrudService.readAccountVersion(ID);
+
+        assertEquals(7L, returnedVersion);
+        verify(userAccountCrudRepository, only()).readAccountVersion(ID);
+    }
+
     @Test
     void updateAccount() {
         when(userAccountCrudRepository.updateAccount(testedAccount)).thenReturn(testedAccount);
@@ -89,4 +103,39 @@ class CrudServiceImplTest {
         assertEquals(accounts, returnedAccounts);
         verify(userAccountCrudRepository, only()).readAccountList(1, 3);
     }
+
+    @Test
+    void readAccountPage() {
+        PagedResult<UserAccount> accountPage = PagedResult.<UserAccount>builder()
+                .content(List.of(testedAccount))
+                .page(1)
+                .size(3)
+                .totalElements(1)
+                .totalPages(1)
+                .build();
+        AccountListQuery query = AccountListQuery.builder()
+                .sortField(SortField.USERNAME)
+                .build();
+
+        when(userAccountCrudRepository.readAccountPage(1, 3, query)).thenReturn(accountPage);
+
+        PagedResult<UserAccount> returnedPage = userAccountCrudService.readAccountPage(1, 3, query);
+
+        assertEquals(accountPage, returnedPage);
+        verify(userAccountCrudRepository, only()).readAccountPage(1, 3, query);
+    }
+
+    @Test
+    void executeTransaction() {
+        List<AccountOperation<UserAccount>> operations = List.of(AccountOperation.update(testedAccount),
+                                                                 AccountOperation.delete("2"));
+        List<UserAccount> previousAccounts = List.of(testedAccount, testedAccount);
+
+        when(userAccountCrudRepository.executeTransaction(operations)).thenReturn(previousAccounts);
+
+        List<UserAccount> returnedAccounts = userAccountCrudService.executeTransaction(operations);
+
+        assertEquals(previousAccounts, returnedAccounts);
+        verify(userAccountCrudRepository, only()).executeTransaction(operations);
+    }
 }